@@ -0,0 +1,57 @@
+package monster.giz.benchmarks;
+
+import monster.giz.GamestateBlockLocator;
+import monster.giz.StellarisSaveAnalyzer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipFile;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaptureBenchmark {
+
+    @Param({"1000"})
+    public int stars;
+
+    @Param({"0", "100"})
+    public int paddingMegabytes;
+
+    private Path workDir;
+    private Path savePath;
+    private Path gamestatePath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("stellaris-capture");
+        SyntheticSave save = new SyntheticSave(stars, 2.5, 0.3, paddingMegabytes, 42);
+        savePath = save.writeSave(workDir.resolve("save"));
+        gamestatePath = save.writeGamestate(workDir.resolve("extracted"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public int captureFromMappedGamestate() throws IOException {
+        return StellarisSaveAnalyzer.captureTopLevelGalacticObjectBlock(gamestatePath).remaining();
+    }
+
+    @Benchmark
+    public int captureFromCompressedSave() throws IOException {
+        try (ZipFile zipFile = new ZipFile(savePath.toFile());
+             InputStream gamestate = zipFile.getInputStream(zipFile.getEntry(StellarisSaveAnalyzer.GAMESTATE_ENTRY))) {
+            return GamestateBlockLocator.capture(gamestate, StellarisSaveAnalyzer.GALACTIC_OBJECT_KEY).remaining();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package monster.giz.benchmarks;
+
+import monster.giz.Galaxy;
+import monster.giz.GalaxyGeometry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiameterBenchmark {
+
+    @Param({"600", "1000", "2000"})
+    public int stars;
+
+    private Galaxy galaxy;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Galaxy.Builder builder = new Galaxy.Builder();
+        for (int i = 0; i < stars; i++) {
+            double angle = random.nextDouble() * Math.PI * 2;
+            double radius = Math.sqrt(random.nextDouble()) * 500;
+            builder.beginSystem();
+            builder.endSystem(i, "NAME_Star_" + i, Math.cos(angle) * radius, Math.sin(angle) * radius);
+        }
+        galaxy = builder.build();
+    }
+
+    @Benchmark
+    public double allPairs() {
+        return GalaxyGeometry.bruteForceDiameter(galaxy);
+    }
+
+    @Benchmark
+    public double hullAndCalipers() {
+        return GalaxyGeometry.diameter(galaxy);
+    }
+}
@@ -0,0 +1,46 @@
+package monster.giz.benchmarks;
+
+import monster.giz.StellarisSaveAnalyzer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    @Param({"1000"})
+    public int stars;
+
+    @Param({"0", "100"})
+    public int paddingMegabytes;
+
+    private Path workDir;
+    private Path savePath;
+    private Path outputDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("stellaris-extract");
+        savePath = new SyntheticSave(stars, 2.5, 0.3, paddingMegabytes, 42).writeSave(workDir.resolve("save"));
+        outputDir = workDir.resolve("extracted");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public long extractStellarisSaveData() throws IOException {
+        StellarisSaveAnalyzer.extractStellarisSaveData(savePath.toString(), outputDir.toString());
+        return Files.size(outputDir.resolve("gamestate"));
+    }
+}
@@ -0,0 +1,55 @@
+package monster.giz.benchmarks;
+
+import monster.giz.GalacticObjectParser;
+import monster.giz.Galaxy;
+import monster.giz.ParallelGalacticObjectParser;
+import monster.giz.StellarisSaveAnalyzer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"1000", "5000", "20000"})
+    public int stars;
+
+    @Param({"2.5"})
+    public double lanesPerStar;
+
+    @Param({"0.3"})
+    public double flagFrequency;
+
+    private ByteBuffer galacticObjectBlock;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path workDir = Files.createTempDirectory("stellaris-parse");
+        try {
+            Path gamestatePath = new SyntheticSave(stars, lanesPerStar, flagFrequency, 0, 42).writeGamestate(workDir);
+            ByteBuffer mapped = StellarisSaveAnalyzer.captureTopLevelGalacticObjectBlock(gamestatePath);
+            galacticObjectBlock = ByteBuffer.allocate(mapped.remaining()).put(mapped).flip();
+        } finally {
+            BenchmarkFiles.deleteRecursively(workDir);
+        }
+    }
+
+    @Benchmark
+    public Galaxy sequential() {
+        return new GalacticObjectParser(galacticObjectBlock.duplicate()).parse();
+    }
+
+    @Benchmark
+    public Galaxy parallel() {
+        return ParallelGalacticObjectParser.parse(galacticObjectBlock.duplicate());
+    }
+}
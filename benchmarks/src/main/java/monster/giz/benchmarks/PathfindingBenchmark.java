@@ -0,0 +1,77 @@
+package monster.giz.benchmarks;
+
+import monster.giz.CostModel;
+import monster.giz.Galaxy;
+import monster.giz.NavigationEngine;
+import monster.giz.Router;
+import monster.giz.StellarisSaveAnalyzer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfindingBenchmark {
+
+    private static final int PAIRS = 256;
+
+    @Param({"1000", "5000"})
+    public int stars;
+
+    @Param({"2.5", "4"})
+    public double lanesPerStar;
+
+    private Galaxy galaxy;
+    private Router router;
+    private int[] fromIds;
+    private int[] toIds;
+    private int pair;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path workDir = Files.createTempDirectory("stellaris-path");
+        try {
+            Path gamestatePath = new SyntheticSave(stars, lanesPerStar, 0.3, 0, 42).writeGamestate(workDir);
+            galaxy = StellarisSaveAnalyzer.parseGalacticObjectBlock(
+                    StellarisSaveAnalyzer.captureTopLevelGalacticObjectBlock(gamestatePath));
+        } finally {
+            BenchmarkFiles.deleteRecursively(workDir);
+        }
+        router = new Router(galaxy);
+
+        Random random = new Random(7);
+        fromIds = new int[PAIRS];
+        toIds = new int[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            fromIds[i] = galaxy.id(random.nextInt(galaxy.size()));
+            toIds[i] = galaxy.id(random.nextInt(galaxy.size()));
+        }
+    }
+
+    @Benchmark
+    public List<Integer> findShortestPath() {
+        int i = pair++ & (PAIRS - 1);
+        return StellarisSaveAnalyzer.findShortestPath(fromIds[i], toIds[i], galaxy);
+    }
+
+    @Benchmark
+    public Router.Route aStarByDistance() {
+        int i = pair++ & (PAIRS - 1);
+        return router.route(galaxy.indexOf(fromIds[i]), galaxy.indexOf(toIds[i]), CostModel.distance());
+    }
+
+    @Benchmark
+    public int navigationEngineFromHome() {
+        int i = pair++ & (PAIRS - 1);
+        return new NavigationEngine(galaxy, galaxy.indexOf(fromIds[i])).reachableCount();
+    }
+}
@@ -0,0 +1,182 @@
+package monster.giz.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class SyntheticSave {
+
+    public static final String[] SPECIAL_NAMES = {
+            "NAME_Helito", "NAME_Wenkwort", "NAME_legendary_crash_site", "NAME_Gargantua", "NAME_Sol"
+    };
+    public static final String[] FLAGS = {
+            "precursor_1", "precursor_2", "precursor_3", "precursor_4", "precursor_5",
+            "hab_system", "guaranteed_wormhole", "horizonsignal_spawn", "sol_system", "unique_system"
+    };
+
+    private final int stars;
+    private final double lanesPerStar;
+    private final double flagFrequency;
+    private final int paddingMegabytes;
+    private final long seed;
+
+    public SyntheticSave(int stars, double lanesPerStar, double flagFrequency, int paddingMegabytes, long seed) {
+        this.stars = stars;
+        this.lanesPerStar = lanesPerStar;
+        this.flagFrequency = flagFrequency;
+        this.paddingMegabytes = paddingMegabytes;
+        this.seed = seed;
+    }
+
+    public Path writeSave(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path savePath = directory.resolve("ironman.sav");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(savePath))) {
+            zip.putNextEntry(new ZipEntry("meta"));
+            zip.write("version=\"Orion v3.9.1\"\nname=\"Synthetic\"\n".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("gamestate"));
+            write(zip);
+            zip.closeEntry();
+        }
+        return savePath;
+    }
+
+    public Path writeGamestate(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path gamestatePath = directory.resolve("gamestate");
+        try (OutputStream out = Files.newOutputStream(gamestatePath)) {
+            write(out);
+        }
+        return gamestatePath;
+    }
+
+    public void write(OutputStream out) throws IOException {
+        Random random = new Random(seed);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        writer.write("version=\"Orion v3.9.1\"\nversion_control_revision=97810\nname=\"Synthetic\"\ndate=\"2300.01.01\"\n");
+
+        // Real saves keep megabytes of pops, fleets and ships on both sides of galactic_object.
+        long paddingBytes = (long) paddingMegabytes << 20;
+        writePadding(writer, "pop", paddingBytes / 2, random);
+        writeGalacticObjects(writer, random);
+        writePadding(writer, "ships", paddingBytes - paddingBytes / 2, random);
+        writer.flush();
+    }
+
+    private void writeGalacticObjects(Writer writer, Random random) throws IOException {
+        // Stars sit on a jittered grid; each one is tied to an earlier neighbour so the galaxy stays connected,
+        // then extra lanes to the other earlier neighbours are added until the average degree is lanesPerStar.
+        int columns = (int) Math.ceil(Math.sqrt(stars));
+        double spacing = 1000.0 / columns;
+        double extraLaneChance = Math.max(0, Math.min(1, (lanesPerStar - 2) / 4));
+        int[][] lanes = new int[stars][8];
+        int[] degree = new int[stars];
+        for (int i = 1; i < stars; i++) {
+            int row = i / columns;
+            int column = i % columns;
+            int[] candidates = {
+                    column > 0 ? i - 1 : -1,
+                    row > 0 ? i - columns : -1,
+                    row > 0 && column > 0 ? i - columns - 1 : -1
+            };
+            int tree = -1;
+            while (tree < 0) {
+                tree = candidates[random.nextInt(candidates.length)];
+            }
+            for (int candidate : candidates) {
+                if (candidate == tree || candidate >= 0 && random.nextDouble() < extraLaneChance) {
+                    addLane(lanes, degree, i, candidate);
+                }
+            }
+        }
+
+        writer.write("galactic_object=\n{\n");
+        int planetId = 0;
+        for (int i = 0; i < stars; i++) {
+            double x = (i % columns - columns / 2.0 + random.nextDouble() * 0.6 - 0.3) * spacing;
+            double y = (i / columns - columns / 2.0 + random.nextDouble() * 0.6 - 0.3) * spacing;
+            String name = i < SPECIAL_NAMES.length ? SPECIAL_NAMES[i] : "NAME_Star_" + i;
+            writer.write("\t" + i + "=\n\t{\n\t\tcoordinate=\n\t\t{\n");
+            writer.write(String.format(Locale.ROOT, "\t\t\tx=%.3f\n\t\t\ty=%.3f\n", x, y));
+            writer.write("\t\t\torigin=4294967295\n\t\t\trandomized=yes\n\t\t}\n\t\ttype=star\n");
+            writer.write("\t\tname=\n\t\t{\n\t\t\tkey=\"" + name + "\"\n\t\t}\n");
+            int planets = 1 + random.nextInt(4);
+            for (int p = 0; p < planets; p++) {
+                writer.write("\t\tplanet=" + planetId++ + "\n");
+            }
+            writer.write("\t\tstar_class=\"sc_g\"\n");
+            if (degree[i] > 0) {
+                writer.write("\t\thyperlane=\n\t\t{\n");
+                for (int k = 0; k < degree[i]; k++) {
+                    writer.write("\t\t\t{\n\t\t\t\tto=" + lanes[i][k] + "\n\t\t\t\tlength=" + (20 + random.nextInt(40)) + "\n\t\t\t}\n");
+                }
+                writer.write("\t\t}\n");
+            }
+            if (random.nextDouble() < flagFrequency) {
+                writer.write("\t\tflags=\n\t\t{\n");
+                int flags = 1 + random.nextInt(3);
+                for (int f = 0; f < flags; f++) {
+                    writer.write("\t\t\t" + FLAGS[random.nextInt(FLAGS.length)] + "=" + random.nextInt(100000) + "\n");
+                }
+                writer.write("\t\t}\n");
+            }
+            writer.write("\t\tstarbases=\n\t\t{\n\t\t\t4294967295\n\t\t}\n");
+            writer.write("\t\tasteroid_belts=\n\t\t{\n\t\t\t{\n\t\t\t\ttype=\"rocky_asteroid_belt\"\n\t\t\t\tinner_radius=70\n\t\t\t}\n\t\t}\n");
+            writer.write("\t}\n");
+        }
+        writer.write("}\n");
+    }
+
+    private static void addLane(int[][] lanes, int[] degree, int from, int to) {
+        for (int k = 0; k < degree[from]; k++) {
+            if (lanes[from][k] == to) {
+                return;
+            }
+        }
+        lanes[from][degree[from]++] = to;
+        lanes[to][degree[to]++] = from;
+    }
+
+    private static void writePadding(Writer writer, String key, long bytes, Random random) throws IOException {
+        if (bytes <= 0) {
+            return;
+        }
+        writer.write(key + "=\n{\n");
+        long written = 0;
+        for (int id = 0; written < bytes; id++) {
+            String entry = "\t" + id + "=\n\t{\n\t\tspecies=" + random.nextInt(200)
+                    + "\n\t\thappiness=" + random.nextInt(1000) / 1000.0
+                    + "\n\t\tname=\"" + key + "_" + Long.toString(random.nextLong() & Long.MAX_VALUE, 36) + "\""
+                    + "\n\t\tflags=\n\t\t{\n\t\t\tpadding_" + random.nextInt(50) + "=" + random.nextInt(100000) + "\n\t\t}"
+                    + "\n\t\tresources=\n\t\t{\n\t\t\tenergy=" + random.nextInt(500) + "\n\t\t\tminerals=" + random.nextInt(500) + "\n\t\t}"
+                    + "\n\t}\n";
+            writer.write(entry);
+            written += entry.length();
+        }
+        writer.write("}\n");
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: SyntheticSave <output folder> [stars] [lanes per star] [flag frequency] [padding MB] [seed]");
+            return;
+        }
+        SyntheticSave save = new SyntheticSave(
+                args.length > 1 ? Integer.parseInt(args[1]) : 1000,
+                args.length > 2 ? Double.parseDouble(args[2]) : 2.5,
+                args.length > 3 ? Double.parseDouble(args[3]) : 0.3,
+                args.length > 4 ? Integer.parseInt(args[4]) : 0,
+                args.length > 5 ? Long.parseLong(args[5]) : 42);
+        System.out.println("Wrote " + save.writeSave(Path.of(args[0])));
+    }
+}
@@ -0,0 +1,127 @@
+package monster.giz;
+
+import monster.giz.StellarisSaveAnalyzer.SystemData;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+public class BatchAnalyzer {
+
+    public static void run(List<Path> saveFolders) {
+        long start = System.nanoTime();
+        System.out.println("=== Batch Analysis (" + saveFolders.size() + " saves, " + threadCount(saveFolders) + " threads) ===");
+        run(saveFolders, SaveSummary::print);
+        if (!Thread.currentThread().isInterrupted()) {
+            System.out.printf("%nAnalyzed %d saves in %d ms%n", saveFolders.size(), (System.nanoTime() - start) / 1_000_000);
+            System.out.println("====================================");
+        }
+    }
+
+    public static void run(List<Path> saveFolders, Consumer<SaveSummary> output) {
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount(saveFolders));
+        try {
+            List<Future<SaveSummary>> summaries = new ArrayList<>();
+            for (Path saveFolder : saveFolders) {
+                summaries.add(executor.submit(() -> analyze(saveFolder)));
+            }
+            // Summaries go out in folder order as soon as each save is done, rather than after the whole batch.
+            for (Future<SaveSummary> summary : summaries) {
+                output.accept(summary.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int threadCount(List<Path> saveFolders) {
+        return Math.max(1, Math.min(saveFolders.size(), Runtime.getRuntime().availableProcessors()));
+    }
+
+    public static SaveSummary analyze(Path saveFolder) {
+        SaveSummary summary = new SaveSummary(saveFolder);
+        Path ironmanSavePath = saveFolder.resolve(StellarisSaveAnalyzer.IRONMAN_SAVE);
+        if (!Files.exists(ironmanSavePath)) {
+            summary.error = "no " + StellarisSaveAnalyzer.IRONMAN_SAVE;
+            return summary;
+        }
+
+        long start = System.nanoTime();
+        try {
+            Galaxy galaxy = StellarisSaveAnalyzer.loadGalaxyCached(ironmanSavePath);
+            if (galaxy == null) {
+                summary.error = "no galactic_object block";
+                return summary;
+            }
+            summary.objectCount = galaxy.size();
+            summary.diameter = galaxy.diameter();
+            StellarisSaveAnalyzer.locateSpecialSystems(galaxy, summary.specialSystems, summary.specialFlagSystems);
+            summary.precursor = StellarisSaveAnalyzer.findMostCommonPrecursor(galaxy);
+        } catch (Exception e) {
+            summary.error = e.toString();
+        }
+        summary.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return summary;
+    }
+
+    public static class SaveSummary {
+        final Path saveFolder;
+        int objectCount;
+        double diameter;
+        String precursor;
+        String error;
+        long elapsedMillis;
+        final List<SystemData> specialSystems = new ArrayList<>();
+        final Map<SystemData, List<String>> specialFlagSystems = new LinkedHashMap<>();
+
+        SaveSummary(Path saveFolder) {
+            this.saveFolder = saveFolder;
+        }
+
+        void print() {
+            System.out.println("\n" + saveFolder.getFileName());
+            if (error != null) {
+                System.out.println("   Skipped: " + error);
+                return;
+            }
+            System.out.printf("   %d galactic objects, diameter %.2f units, most common precursor: %s (%d ms)%n",
+                    objectCount, diameter, precursor != null ? precursor : "Not found", elapsedMillis);
+            if (!specialSystems.isEmpty()) {
+                System.out.println("   Special systems: " + specialSystems.stream()
+                        .map(system -> system.name)
+                        .collect(Collectors.joining(", ")));
+            }
+            for (Map.Entry<SystemData, List<String>> entry : specialFlagSystems.entrySet()) {
+                System.out.println("   " + entry.getKey().name + ": " + String.join(", ", entry.getValue()));
+            }
+        }
+
+        void write(ReportWriter writer) {
+            String save = saveFolder.getFileName().toString();
+            if (error != null) {
+                writer.error(save, error);
+                return;
+            }
+            writer.overview(save, objectCount, diameter, precursor);
+            for (SystemData system : specialSystems) {
+                writer.specialSystem(save, system, List.of());
+            }
+            for (Map.Entry<SystemData, List<String>> entry : specialFlagSystems.entrySet()) {
+                writer.specialSystem(save, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}
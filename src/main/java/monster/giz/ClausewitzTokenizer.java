@@ -0,0 +1,266 @@
+package monster.giz;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class ClausewitzTokenizer {
+
+    public static final int EOF = 0;
+    public static final int OPEN = 1;
+    public static final int CLOSE = 2;
+    public static final int SCALAR = 3;
+    public static final int QUOTED = 4;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    private int tokenType = EOF;
+    private int tokenStart;
+    private int tokenEnd;
+
+    public ClausewitzTokenizer(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    public int next() {
+        skipWhitespaceAndComments();
+        if (position >= limit) {
+            tokenStart = tokenEnd = limit;
+            return tokenType = EOF;
+        }
+
+        byte b = buffer.get(position);
+        tokenStart = position;
+        if (b == '{') {
+            tokenEnd = ++position;
+            return tokenType = OPEN;
+        }
+        if (b == '}') {
+            tokenEnd = ++position;
+            return tokenType = CLOSE;
+        }
+        if (b == '"') {
+            int end = position + 1;
+            while (end < limit) {
+                byte c = buffer.get(end);
+                if (c == '\\') {
+                    end += 2;
+                    continue;
+                }
+                if (c == '"') {
+                    break;
+                }
+                end++;
+            }
+            tokenStart = position + 1;
+            tokenEnd = Math.min(end, limit);
+            position = Math.min(end + 1, limit);
+            return tokenType = QUOTED;
+        }
+        if (b == '=') {
+            // A stray operator with no key in front of it; treat it as an empty scalar.
+            tokenEnd = ++position;
+            return tokenType = SCALAR;
+        }
+
+        int end = position;
+        while (end < limit && !isDelimiter(buffer.get(end))) {
+            end++;
+        }
+        tokenEnd = end;
+        position = end;
+        return tokenType = SCALAR;
+    }
+
+    public boolean consumeEquals() {
+        skipWhitespaceAndComments();
+        if (position < limit && buffer.get(position) == '=') {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    public void skipValue() {
+        int type = next();
+        if (type == OPEN) {
+            skipBlock();
+        }
+    }
+
+    public void skipBlock() {
+        int depth = 1;
+        while (depth > 0) {
+            int type = next();
+            if (type == OPEN) {
+                depth++;
+            } else if (type == CLOSE) {
+                depth--;
+            } else if (type == EOF) {
+                return;
+            }
+        }
+    }
+
+    public int tokenType() {
+        return tokenType;
+    }
+
+    public int tokenStart() {
+        return tokenStart;
+    }
+
+    public int tokenEnd() {
+        return tokenEnd;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    public boolean tokenEquals(byte[] literal) {
+        if (tokenEnd - tokenStart != literal.length) {
+            return false;
+        }
+        for (int i = 0; i < literal.length; i++) {
+            if (buffer.get(tokenStart + i) != literal[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isIntegerToken() {
+        if (tokenType != SCALAR || tokenEnd == tokenStart) {
+            return false;
+        }
+        int i = tokenStart;
+        if (buffer.get(i) == '-') {
+            i++;
+        }
+        if (i == tokenEnd) {
+            return false;
+        }
+        for (; i < tokenEnd; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long tokenAsLong() {
+        int i = tokenStart;
+        boolean negative = false;
+        if (i < tokenEnd && buffer.get(i) == '-') {
+            negative = true;
+            i++;
+        }
+        long value = 0;
+        for (; i < tokenEnd; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                throw new NumberFormatException("Not an integer: " + tokenAsString());
+            }
+            value = value * 10 + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    public int tokenAsInt() {
+        return (int) tokenAsLong();
+    }
+
+    public double tokenAsDouble() {
+        int i = tokenStart;
+        boolean negative = false;
+        if (i < tokenEnd && buffer.get(i) == '-') {
+            negative = true;
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        for (; i < tokenEnd; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && !inFraction) {
+                inFraction = true;
+                continue;
+            }
+            if (b < '0' || b > '9') {
+                return Double.parseDouble(tokenAsString());
+            }
+            mantissa = mantissa * 10 + (b - '0');
+            if (++digits > 15) {
+                return Double.parseDouble(tokenAsString());
+            }
+            if (inFraction) {
+                fractionDigits++;
+            }
+        }
+
+        // Both operands are exact doubles here, so the single division is correctly rounded.
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    public String tokenAsString() {
+        byte[] bytes = new byte[tokenEnd - tokenStart];
+        buffer.get(tokenStart, bytes);
+        if (tokenType == QUOTED) {
+            for (byte b : bytes) {
+                if (b == '\\') {
+                    return unescape(bytes);
+                }
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String unescape(byte[] bytes) {
+        byte[] result = new byte[bytes.length];
+        int length = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\\' && i + 1 < bytes.length) {
+                i++;
+            }
+            result[length++] = bytes[i];
+        }
+        return new String(result, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                position++;
+            } else if (b == '#') {
+                while (position < limit && buffer.get(position) != '\n') {
+                    position++;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r'
+                || b == '=' || b == '{' || b == '}' || b == '"' || b == '#';
+    }
+}
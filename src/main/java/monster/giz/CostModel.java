@@ -0,0 +1,68 @@
+package monster.giz;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+
+public interface CostModel {
+
+    double laneCost(Galaxy galaxy, int from, int to);
+
+    // Must never overestimate the remaining cost, or A* stops returning optimal routes.
+    double estimate(Galaxy galaxy, int from, int target);
+
+    static CostModel hops() {
+        return new CostModel() {
+            @Override
+            public double laneCost(Galaxy galaxy, int from, int to) {
+                return 1;
+            }
+
+            @Override
+            public double estimate(Galaxy galaxy, int from, int target) {
+                double longestLane = galaxy.longestLane();
+                return longestLane > 0 ? Math.floor(galaxy.distance(from, target) / longestLane) : 0;
+            }
+        };
+    }
+
+    static CostModel distance() {
+        return new CostModel() {
+            @Override
+            public double laneCost(Galaxy galaxy, int from, int to) {
+                return galaxy.distance(from, to);
+            }
+
+            @Override
+            public double estimate(Galaxy galaxy, int from, int target) {
+                return galaxy.distance(from, target);
+            }
+        };
+    }
+
+    static CostModel avoidingFlags(Galaxy galaxy, Collection<String> flags, double penalty) {
+        // A negative penalty would let lanes cost less than the straight-line estimate, breaking the rule above.
+        if (!(penalty >= 0)) {
+            throw new IllegalArgumentException("Flag penalty must not be negative: " + penalty);
+        }
+        BitSet avoided = galaxy.flagIndex().systemsWithAny(flagId -> flags.contains(galaxy.flagName(flagId)));
+
+        return new CostModel() {
+            @Override
+            public double laneCost(Galaxy galaxy, int from, int to) {
+                double cost = galaxy.distance(from, to);
+                return avoided.get(to) ? cost + penalty : cost;
+            }
+
+            @Override
+            public double estimate(Galaxy galaxy, int from, int target) {
+                return galaxy.distance(from, target);
+            }
+
+            @Override
+            public String toString() {
+                return "avoiding " + Arrays.toString(flags.toArray());
+            }
+        };
+    }
+}
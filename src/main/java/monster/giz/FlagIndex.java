@@ -0,0 +1,74 @@
+package monster.giz;
+
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+
+public class FlagIndex {
+
+    private final int size;
+    private final long[][] systemsByFlag;
+    private final int[] counts;
+
+    public FlagIndex(Galaxy galaxy) {
+        this.size = galaxy.size();
+        int words = (size + 63) >>> 6;
+        this.systemsByFlag = new long[galaxy.flagCount()][];
+        this.counts = new int[galaxy.flagCount()];
+        for (int i = 0; i < size; i++) {
+            for (int k = galaxy.flagStart(i); k < galaxy.flagEnd(i); k++) {
+                int flagId = galaxy.flagAt(k);
+                long[] systems = systemsByFlag[flagId];
+                if (systems == null) {
+                    systems = systemsByFlag[flagId] = new long[words];
+                }
+                long bit = 1L << i;
+                if ((systems[i >>> 6] & bit) == 0) {
+                    systems[i >>> 6] |= bit;
+                    counts[flagId]++;
+                }
+            }
+        }
+    }
+
+    public long estimatedBytes() {
+        long bytes = 16L * 2 + 8L * systemsByFlag.length;
+        for (long[] systems : systemsByFlag) {
+            bytes += systems != null ? 16 + 8L * systems.length : 0;
+        }
+        return bytes;
+    }
+
+    public int count(int flagId) {
+        return counts[flagId];
+    }
+
+    public BitSet systemsWithAny(IntPredicate flags) {
+        long[] result = new long[(size + 63) >>> 6];
+        for (int flagId = 0; flagId < systemsByFlag.length; flagId++) {
+            long[] systems = systemsByFlag[flagId];
+            if (systems != null && flags.test(flagId)) {
+                for (int w = 0; w < result.length; w++) {
+                    result[w] |= systems[w];
+                }
+            }
+        }
+        return BitSet.valueOf(result);
+    }
+
+    public int[] countsWithin(BitSet area) {
+        long[] areaWords = area.toLongArray();
+        int[] within = new int[systemsByFlag.length];
+        for (int flagId = 0; flagId < systemsByFlag.length; flagId++) {
+            long[] systems = systemsByFlag[flagId];
+            if (systems == null) {
+                continue;
+            }
+            int count = 0;
+            for (int w = 0; w < areaWords.length; w++) {
+                count += Long.bitCount(systems[w] & areaWords[w]);
+            }
+            within[flagId] = count;
+        }
+        return within;
+    }
+}
@@ -0,0 +1,237 @@
+package monster.giz;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static monster.giz.ClausewitzTokenizer.*;
+
+public class GalacticObjectParser {
+
+    private static final byte[] GALACTIC_OBJECT = bytes("galactic_object");
+    private static final byte[] COORDINATE = bytes("coordinate");
+    private static final byte[] X = bytes("x");
+    private static final byte[] Y = bytes("y");
+    private static final byte[] NAME = bytes("name");
+    private static final byte[] KEY = bytes("key");
+    private static final byte[] HYPERLANE = bytes("hyperlane");
+    private static final byte[] TO = bytes("to");
+    private static final byte[] FLAGS = bytes("flags");
+
+    private final ClausewitzTokenizer tokenizer;
+
+    private Galaxy.Builder builder;
+    private String name;
+    private double x, y;
+
+    private int[] invalidSystems = new int[0];
+    private int invalidCount;
+
+    public GalacticObjectParser(ByteBuffer block) {
+        this.tokenizer = new ClausewitzTokenizer(block);
+    }
+
+    public Galaxy parse() {
+        Galaxy.Builder builder = new Galaxy.Builder();
+        parse(builder);
+        return builder.build();
+    }
+
+    public void parse(Galaxy.Builder builder) {
+        this.builder = builder;
+        int type = tokenizer.next();
+        if (type == SCALAR && tokenizer.tokenEquals(GALACTIC_OBJECT)) {
+            if (!tokenizer.consumeEquals() || tokenizer.next() != OPEN) {
+                return;
+            }
+            type = tokenizer.next();
+        } else if (type == OPEN) {
+            type = tokenizer.next();
+        }
+
+        parseChildren(type);
+        for (int i = 0; i < invalidCount; i++) {
+            System.out.println("Could not load system data: " + invalidSystems[i]);
+        }
+    }
+
+    void parseChunk(Galaxy.Builder builder) {
+        this.builder = builder;
+        parseChildren(tokenizer.next());
+    }
+
+    int[] invalidSystems() {
+        return Arrays.copyOf(invalidSystems, invalidCount);
+    }
+
+    private void parseChildren(int type) {
+        for (; type != EOF && type != CLOSE; type = tokenizer.next()) {
+            if (type == OPEN) {
+                tokenizer.skipBlock();
+                continue;
+            }
+            if (!tokenizer.isIntegerToken()) {
+                if (tokenizer.consumeEquals()) {
+                    tokenizer.skipValue();
+                }
+                continue;
+            }
+
+            int id = tokenizer.tokenAsInt();
+            if (!tokenizer.consumeEquals()) {
+                continue;
+            }
+            if (tokenizer.next() != OPEN) {
+                // Removed objects are written as "N=none".
+                continue;
+            }
+
+            if (!parseSystem(id)) {
+                if (invalidCount == invalidSystems.length) {
+                    invalidSystems = Arrays.copyOf(invalidSystems, Math.max(8, invalidCount * 2));
+                }
+                invalidSystems[invalidCount++] = id;
+            }
+        }
+    }
+
+    private boolean parseSystem(int id) {
+        name = null;
+        x = 0;
+        y = 0;
+        builder.beginSystem();
+
+        for (int type = tokenizer.next(); type != CLOSE && type != EOF; type = tokenizer.next()) {
+            if (type == OPEN) {
+                tokenizer.skipBlock();
+                continue;
+            }
+            if (!tokenizer.consumeEquals()) {
+                continue;
+            }
+
+            if (tokenizer.tokenEquals(COORDINATE)) {
+                parseCoordinate();
+            } else if (tokenizer.tokenEquals(NAME)) {
+                parseName();
+            } else if (tokenizer.tokenEquals(HYPERLANE)) {
+                parseHyperlanes();
+            } else if (tokenizer.tokenEquals(FLAGS)) {
+                parseFlags();
+            } else {
+                tokenizer.skipValue();
+            }
+        }
+
+        if (name != null && x != 0 && y != 0) {
+            builder.endSystem(id, name, x, y);
+            return true;
+        }
+        builder.discardSystem();
+        return false;
+    }
+
+    private void parseCoordinate() {
+        if (tokenizer.next() != OPEN) {
+            return;
+        }
+        for (int type = tokenizer.next(); type != CLOSE && type != EOF; type = tokenizer.next()) {
+            if (type == OPEN) {
+                tokenizer.skipBlock();
+                continue;
+            }
+            if (!tokenizer.consumeEquals()) {
+                continue;
+            }
+            boolean isX = tokenizer.tokenEquals(X);
+            boolean isY = !isX && tokenizer.tokenEquals(Y);
+            int valueType = tokenizer.next();
+            if (valueType == OPEN) {
+                tokenizer.skipBlock();
+            } else if (valueType == SCALAR && isX) {
+                x = tokenizer.tokenAsDouble();
+            } else if (valueType == SCALAR && isY) {
+                y = tokenizer.tokenAsDouble();
+            }
+        }
+    }
+
+    private void parseName() {
+        int type = tokenizer.next();
+        if (type == QUOTED) {
+            name = tokenizer.tokenAsString();
+            return;
+        }
+        if (type != OPEN) {
+            return;
+        }
+        for (type = tokenizer.next(); type != CLOSE && type != EOF; type = tokenizer.next()) {
+            if (type == OPEN) {
+                tokenizer.skipBlock();
+                continue;
+            }
+            if (!tokenizer.consumeEquals()) {
+                continue;
+            }
+            boolean isKey = name == null && tokenizer.tokenEquals(KEY);
+            int valueType = tokenizer.next();
+            if (valueType == OPEN) {
+                tokenizer.skipBlock();
+            } else if (isKey && valueType == QUOTED) {
+                name = tokenizer.tokenAsString();
+            }
+        }
+    }
+
+    private void parseHyperlanes() {
+        if (tokenizer.next() != OPEN) {
+            return;
+        }
+        for (int type = tokenizer.next(); type != CLOSE && type != EOF; type = tokenizer.next()) {
+            if (type != OPEN) {
+                if (tokenizer.consumeEquals()) {
+                    tokenizer.skipValue();
+                }
+                continue;
+            }
+            for (type = tokenizer.next(); type != CLOSE && type != EOF; type = tokenizer.next()) {
+                if (type == OPEN) {
+                    tokenizer.skipBlock();
+                    continue;
+                }
+                if (!tokenizer.consumeEquals()) {
+                    continue;
+                }
+                boolean isTo = tokenizer.tokenEquals(TO);
+                int valueType = tokenizer.next();
+                if (valueType == OPEN) {
+                    tokenizer.skipBlock();
+                } else if (isTo && tokenizer.isIntegerToken()) {
+                    builder.addHyperlane(tokenizer.tokenAsInt());
+                }
+            }
+        }
+    }
+
+    private void parseFlags() {
+        if (tokenizer.next() != OPEN) {
+            return;
+        }
+        for (int type = tokenizer.next(); type != CLOSE && type != EOF; type = tokenizer.next()) {
+            if (type == OPEN) {
+                tokenizer.skipBlock();
+                continue;
+            }
+            int start = tokenizer.tokenStart();
+            int end = tokenizer.tokenEnd();
+            if (tokenizer.consumeEquals()) {
+                builder.addFlag(builder.flagSymbols().intern(tokenizer.buffer(), start, end));
+                tokenizer.skipValue();
+            }
+        }
+    }
+
+    private static byte[] bytes(String literal) {
+        return literal.getBytes(StandardCharsets.US_ASCII);
+    }
+}
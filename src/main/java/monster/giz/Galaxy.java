@@ -0,0 +1,426 @@
+package monster.giz;
+
+import monster.giz.StellarisSaveAnalyzer.Hyperlane;
+import monster.giz.StellarisSaveAnalyzer.SystemData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Galaxy {
+
+    private final int[] ids;
+    private final String[] names;
+    private final double[] xs;
+    private final double[] ys;
+
+    private final String[] flagNames;
+    private final int[] flagOffsets;
+    private final int[] flagIds;
+
+    private final int[] laneOffsets;
+    private final int[] laneTargets;
+
+    private final int[] indexById;
+
+    private double diameter = -1;
+    private double longestLane = -1;
+    private SpatialIndex spatialIndex;
+    private NameIndex nameIndex;
+    private FlagIndex flagIndex;
+
+    private Galaxy(int[] ids, String[] names, double[] xs, double[] ys, String[] flagNames,
+                   int[] flagOffsets, int[] flagIds, int[] laneOffsets, int[] laneTargets, int[] indexById) {
+        this.ids = ids;
+        this.names = names;
+        this.xs = xs;
+        this.ys = ys;
+        this.flagNames = flagNames;
+        this.flagOffsets = flagOffsets;
+        this.flagIds = flagIds;
+        this.laneOffsets = laneOffsets;
+        this.laneTargets = laneTargets;
+        this.indexById = indexById;
+    }
+
+    static Galaxy fromSortedArrays(int[] ids, String[] names, double[] xs, double[] ys, String[] flagNames,
+                                   int[] flagOffsets, int[] flagIds, int[] laneOffsets, int[] laneTargets) {
+        return new Galaxy(ids, names, xs, ys, flagNames, flagOffsets, flagIds, laneOffsets, laneTargets, buildIndexById(ids));
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int id(int index) {
+        return ids[index];
+    }
+
+    public String name(int index) {
+        return names[index];
+    }
+
+    public double x(int index) {
+        return xs[index];
+    }
+
+    public double y(int index) {
+        return ys[index];
+    }
+
+    public int indexOf(int id) {
+        return indexOf(ids, indexById, id);
+    }
+
+    private static int indexOf(int[] ids, int[] indexById, int id) {
+        if (indexById != null) {
+            return id >= 0 && id < indexById.length ? indexById[id] : -1;
+        }
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? index : -1;
+    }
+
+    public double distance(int from, int to) {
+        double dx = xs[from] - xs[to];
+        double dy = ys[from] - ys[to];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    public double diameter() {
+        if (diameter < 0) {
+            diameter = GalaxyGeometry.diameter(this);
+        }
+        return diameter;
+    }
+
+    public boolean reuseGeometry(Galaxy previous) {
+        if (previous == null || !Arrays.equals(ids, previous.ids)
+                || !Arrays.equals(xs, previous.xs) || !Arrays.equals(ys, previous.ys)) {
+            return false;
+        }
+        diameter = previous.diameter;
+        if (previous.spatialIndex != null) {
+            spatialIndex = new SpatialIndex(this, previous.spatialIndex);
+        }
+        return true;
+    }
+
+    public boolean sameHyperlanes(Galaxy previous) {
+        return previous != null && Arrays.equals(ids, previous.ids)
+                && Arrays.equals(laneOffsets, previous.laneOffsets) && Arrays.equals(laneTargets, previous.laneTargets);
+    }
+
+    public double longestLane() {
+        if (longestLane < 0) {
+            double longest = 0;
+            for (int i = 0; i < size(); i++) {
+                for (int lane = laneOffsets[i]; lane < laneOffsets[i + 1]; lane++) {
+                    longest = Math.max(longest, distance(i, laneTargets[lane]));
+                }
+            }
+            longestLane = longest;
+        }
+        return longestLane;
+    }
+
+    public long estimatedBytes() {
+        // Array payloads plus headers, strings at their Latin-1 size, and whichever indexes have been built so far.
+        long bytes = 16L * 10 + 4L * ids.length + 16L * xs.length + 4L * flagOffsets.length + 4L * flagIds.length
+                + 4L * laneOffsets.length + 4L * laneTargets.length + (indexById != null ? 4L * indexById.length : 0);
+        bytes += spatialIndex != null ? spatialIndex.estimatedBytes() : 0;
+        bytes += nameIndex != null ? nameIndex.estimatedBytes() : 0;
+        bytes += flagIndex != null ? flagIndex.estimatedBytes() : 0;
+        for (String name : names) {
+            bytes += 4 + 40 + name.length();
+        }
+        for (String flagName : flagNames) {
+            bytes += 4 + 40 + flagName.length();
+        }
+        return bytes;
+    }
+
+    public SpatialIndex spatialIndex() {
+        if (spatialIndex == null) {
+            spatialIndex = new SpatialIndex(this);
+        }
+        return spatialIndex;
+    }
+
+    public FlagIndex flagIndex() {
+        if (flagIndex == null) {
+            flagIndex = new FlagIndex(this);
+        }
+        return flagIndex;
+    }
+
+    public NameIndex nameIndex() {
+        if (nameIndex == null) {
+            nameIndex = new NameIndex(this);
+        }
+        return nameIndex;
+    }
+
+    public int laneStart(int index) {
+        return laneOffsets[index];
+    }
+
+    public int laneEnd(int index) {
+        return laneOffsets[index + 1];
+    }
+
+    public int laneTarget(int lane) {
+        return laneTargets[lane];
+    }
+
+    public int degree(int index) {
+        return laneOffsets[index + 1] - laneOffsets[index];
+    }
+
+    public int laneCount() {
+        return laneTargets.length;
+    }
+
+    public int flagStart(int index) {
+        return flagOffsets[index];
+    }
+
+    public int flagEnd(int index) {
+        return flagOffsets[index + 1];
+    }
+
+    public int flagAt(int position) {
+        return flagIds[position];
+    }
+
+    public int flagReferenceCount() {
+        return flagIds.length;
+    }
+
+    public int flagCount() {
+        return flagNames.length;
+    }
+
+    public String flagName(int flagId) {
+        return flagNames[flagId];
+    }
+
+    public int flagId(String flagName) {
+        for (int i = 0; i < flagNames.length; i++) {
+            if (flagNames[i].equals(flagName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public SystemData system(int index) {
+        SystemData data = new SystemData(ids[index], names[index], xs[index], ys[index]);
+        int flagFrom = flagOffsets[index];
+        int flagTo = flagOffsets[index + 1];
+        if (flagTo > flagFrom) {
+            String[] flags = new String[flagTo - flagFrom];
+            for (int k = flagFrom; k < flagTo; k++) {
+                flags[k - flagFrom] = flagNames[flagIds[k]];
+            }
+            data.setFlags(flags);
+        }
+        if (laneOffsets[index + 1] > laneOffsets[index]) {
+            List<Hyperlane> hyperlanes = new ArrayList<>(degree(index));
+            for (int k = laneOffsets[index]; k < laneOffsets[index + 1]; k++) {
+                hyperlanes.add(new Hyperlane(ids[laneTargets[k]]));
+            }
+            data.setHyperlanes(hyperlanes);
+        }
+        return data;
+    }
+
+    public SystemData systemById(int id) {
+        int index = indexOf(id);
+        return index >= 0 ? system(index) : null;
+    }
+
+    private static int[] buildIndexById(int[] ids) {
+        if (ids.length == 0 || ids[0] < 0 || ids[ids.length - 1] > ids.length * 4L + 1024) {
+            return null;
+        }
+        int[] indexById = new int[ids[ids.length - 1] + 1];
+        Arrays.fill(indexById, -1);
+        for (int i = 0; i < ids.length; i++) {
+            indexById[ids[i]] = i;
+        }
+        return indexById;
+    }
+
+    public static class Builder {
+
+        private final SymbolTable flagSymbols = new SymbolTable();
+
+        private int size;
+        private int[] ids = new int[256];
+        private String[] names = new String[256];
+        private double[] xs = new double[256];
+        private double[] ys = new double[256];
+        private int[] flagEnds = new int[256];
+        private int[] laneEnds = new int[256];
+
+        private int flagSize;
+        private int[] flagIds = new int[256];
+        private int laneSize;
+        private int[] laneTargetIds = new int[1024];
+
+        private int pendingFlagStart;
+        private int pendingLaneStart;
+
+        public SymbolTable flagSymbols() {
+            return flagSymbols;
+        }
+
+        public void beginSystem() {
+            pendingFlagStart = flagSize;
+            pendingLaneStart = laneSize;
+        }
+
+        public void addFlag(int flagId) {
+            if (flagSize == flagIds.length) {
+                flagIds = Arrays.copyOf(flagIds, flagSize * 2);
+            }
+            flagIds[flagSize++] = flagId;
+        }
+
+        public void addFlag(String flagName) {
+            addFlag(flagSymbols.intern(flagName));
+        }
+
+        public void addHyperlane(int toId) {
+            if (laneSize == laneTargetIds.length) {
+                laneTargetIds = Arrays.copyOf(laneTargetIds, laneSize * 2);
+            }
+            laneTargetIds[laneSize++] = toId;
+        }
+
+        public void endSystem(int id, String name, double x, double y) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                names = Arrays.copyOf(names, capacity);
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+                flagEnds = Arrays.copyOf(flagEnds, capacity);
+                laneEnds = Arrays.copyOf(laneEnds, capacity);
+            }
+            ids[size] = id;
+            names[size] = name;
+            xs[size] = x;
+            ys[size] = y;
+            flagEnds[size] = flagSize;
+            laneEnds[size] = laneSize;
+            size++;
+        }
+
+        public void discardSystem() {
+            flagSize = pendingFlagStart;
+            laneSize = pendingLaneStart;
+        }
+
+        public void addSystem(SystemData system) {
+            beginSystem();
+            if (system.flags != null) {
+                for (String flag : system.flags) {
+                    addFlag(flag);
+                }
+            }
+            if (system.hyperlanes != null) {
+                for (Hyperlane hyperlane : system.hyperlanes) {
+                    addHyperlane(hyperlane.to);
+                }
+            }
+            endSystem(system.id, system.name, system.x, system.y);
+        }
+
+        public void addAll(Builder other) {
+            // Interning in the other table's id order keeps the flag dictionary in first-seen order.
+            int[] flagIdMap = new int[other.flagSymbols.size()];
+            for (int flagId = 0; flagId < flagIdMap.length; flagId++) {
+                flagIdMap[flagId] = flagSymbols.intern(other.flagSymbols.symbol(flagId));
+            }
+            for (int source = 0; source < other.size; source++) {
+                beginSystem();
+                for (int k = other.flagStart(source); k < other.flagEnds[source]; k++) {
+                    addFlag(flagIdMap[other.flagIds[k]]);
+                }
+                for (int k = other.laneStart(source); k < other.laneEnds[source]; k++) {
+                    addHyperlane(other.laneTargetIds[k]);
+                }
+                endSystem(other.ids[source], other.names[source], other.xs[source], other.ys[source]);
+            }
+        }
+
+        public Galaxy build() {
+            // Sort by id and keep the last definition of a duplicated id, as a map put would.
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) ids[i] << 32) | (~i & 0xFFFFFFFFL);
+            }
+            Arrays.sort(keys);
+
+            int[] order = new int[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int source = ~(int) keys[i];
+                if (count > 0 && ids[order[count - 1]] == ids[source]) {
+                    continue;
+                }
+                order[count++] = source;
+            }
+
+            int[] sortedIds = new int[count];
+            String[] sortedNames = new String[count];
+            double[] sortedXs = new double[count];
+            double[] sortedYs = new double[count];
+            for (int i = 0; i < count; i++) {
+                int source = order[i];
+                sortedIds[i] = ids[source];
+                sortedNames[i] = names[source];
+                sortedXs[i] = xs[source];
+                sortedYs[i] = ys[source];
+            }
+
+            int[] sortedFlagOffsets = new int[count + 1];
+            int[] sortedLaneOffsets = new int[count + 1];
+            for (int i = 0; i < count; i++) {
+                int source = order[i];
+                sortedFlagOffsets[i + 1] = sortedFlagOffsets[i] + flagEnds[source] - flagStart(source);
+                sortedLaneOffsets[i + 1] = sortedLaneOffsets[i] + laneEnds[source] - laneStart(source);
+            }
+
+            int[] sortedFlagIds = new int[sortedFlagOffsets[count]];
+            int[] laneTargetIndexes = new int[sortedLaneOffsets[count]];
+            int[] sortedIndexById = buildIndexById(sortedIds);
+            int laneCount = 0;
+            for (int i = 0; i < count; i++) {
+                int source = order[i];
+                System.arraycopy(flagIds, flagStart(source), sortedFlagIds, sortedFlagOffsets[i], sortedFlagOffsets[i + 1] - sortedFlagOffsets[i]);
+                int laneFrom = laneCount;
+                for (int k = laneStart(source); k < laneEnds[source]; k++) {
+                    int target = indexOf(sortedIds, sortedIndexById, laneTargetIds[k]);
+                    if (target >= 0) {
+                        laneTargetIndexes[laneCount++] = target;
+                    }
+                }
+                sortedLaneOffsets[i] = laneFrom;
+            }
+            sortedLaneOffsets[count] = laneCount;
+
+            return new Galaxy(sortedIds, sortedNames, sortedXs, sortedYs, flagSymbols.toArray(),
+                    sortedFlagOffsets, sortedFlagIds, sortedLaneOffsets, Arrays.copyOf(laneTargetIndexes, laneCount), sortedIndexById);
+        }
+
+        private int flagStart(int source) {
+            return source == 0 ? 0 : flagEnds[source - 1];
+        }
+
+        private int laneStart(int source) {
+            return source == 0 ? 0 : laneEnds[source - 1];
+        }
+    }
+}
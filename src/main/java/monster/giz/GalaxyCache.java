@@ -0,0 +1,144 @@
+package monster.giz;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class GalaxyCache {
+
+    private final long budgetBytes;
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes;
+
+    public GalaxyCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    public Galaxy get(Path ironmanSavePath) throws IOException {
+        Path key = ironmanSavePath.toAbsolutePath().normalize();
+        FileTime modified = Files.getLastModifiedTime(key);
+        Entry entry;
+        boolean owner = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && !entry.modified.equals(modified)) {
+                remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                // Until the load finishes its size is unknown, so it is charged the compressed save size,
+                // roughly what the captured galactic_object block holds while it is parsed.
+                entry = new Entry(modified);
+                entry.bytes = Files.size(key);
+                entries.put(key, entry);
+                residentBytes += entry.bytes;
+                evict(key);
+                owner = true;
+            }
+        }
+
+        // Loading happens outside the lock, so one slow save does not hold up queries against the others.
+        if (owner) {
+            try {
+                Galaxy galaxy = StellarisSaveAnalyzer.loadGalaxyCached(key);
+                if (galaxy == null) {
+                    throw new IOException("no galactic_object block in " + key);
+                }
+                // Lazily built indexes are created here, before the galaxy is shared between handler threads.
+                galaxy.diameter();
+                galaxy.spatialIndex();
+                galaxy.nameIndex();
+                galaxy.flagIndex();
+                long bytes = galaxy.estimatedBytes();
+                synchronized (this) {
+                    if (entries.get(key) == entry) {
+                        residentBytes += bytes - entry.bytes;
+                        entry.resident = true;
+                        evict(key);
+                    }
+                    entry.bytes = bytes;
+                }
+                entry.galaxy.complete(galaxy);
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    if (entries.get(key) == entry) {
+                        remove(key);
+                    }
+                }
+                entry.galaxy.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return entry.galaxy.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private void evict(Path keep) {
+        // Loads still in flight are charged but never evicted; their callers are already waiting on them.
+        Iterator<Map.Entry<Path, Entry>> iterator = entries.entrySet().iterator();
+        while (residentBytes > budgetBytes && iterator.hasNext()) {
+            Map.Entry<Path, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(keep) || !eldest.getValue().resident) {
+                continue;
+            }
+            residentBytes -= eldest.getValue().bytes;
+            iterator.remove();
+        }
+    }
+
+    private void remove(Path key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            residentBytes -= removed.bytes;
+        }
+    }
+
+    public synchronized List<Map<String, Object>> describe() {
+        List<Map<String, Object>> loaded = new ArrayList<>();
+        for (Map.Entry<Path, Entry> entry : entries.entrySet()) {
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("save", entry.getKey().toString());
+            description.put("bytes", entry.getValue().bytes);
+            description.put("loaded", entry.getValue().resident);
+            loaded.add(description);
+        }
+        return loaded;
+    }
+
+    public synchronized long residentBytes() {
+        return residentBytes;
+    }
+
+    public long budgetBytes() {
+        return budgetBytes;
+    }
+
+    private static class Entry {
+        final FileTime modified;
+        final CompletableFuture<Galaxy> galaxy = new CompletableFuture<>();
+        long bytes;
+        boolean resident;
+
+        Entry(FileTime modified) {
+            this.modified = modified;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package monster.giz;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class GalaxyDiff {
+
+    public interface Listener {
+        default void systemAdded(Galaxy after, int index) {
+        }
+
+        default void systemRemoved(Galaxy before, int index) {
+        }
+
+        default void systemRenamed(int id, String oldName, String newName) {
+        }
+
+        default void systemMoved(int id, double oldX, double oldY, double newX, double newY) {
+        }
+
+        default void flagAdded(int id, String flag) {
+        }
+
+        default void flagRemoved(int id, String flag) {
+        }
+
+        default void hyperlaneAdded(int fromId, int toId) {
+        }
+
+        default void hyperlaneRemoved(int fromId, int toId) {
+        }
+    }
+
+    private final Galaxy before;
+    private final Galaxy after;
+    private final int[] afterIndexOf;
+    private final int[] afterFlagOf;
+    private final int[] flagMark;
+    private final int[] laneMark;
+    private final int[] laneMatched;
+    private int stamp;
+
+    private GalaxyDiff(Galaxy before, Galaxy after) {
+        this.before = before;
+        this.after = after;
+        this.afterIndexOf = new int[before.size()];
+        this.afterFlagOf = new int[before.flagCount()];
+        this.flagMark = new int[after.flagCount()];
+        this.laneMark = new int[after.size()];
+        this.laneMatched = new int[after.size()];
+    }
+
+    public static void diff(Galaxy before, Galaxy after, Listener listener) {
+        new GalaxyDiff(before, after).run(listener);
+    }
+
+    private void run(Listener listener) {
+        // Both galaxies are sorted by id, so one merge pass pairs every system up.
+        int i = 0;
+        int j = 0;
+        while (i < before.size() || j < after.size()) {
+            if (j == after.size() || i < before.size() && before.id(i) < after.id(j)) {
+                afterIndexOf[i++] = -1;
+            } else if (i == before.size() || after.id(j) < before.id(i)) {
+                j++;
+            } else {
+                afterIndexOf[i++] = j++;
+            }
+        }
+
+        Map<String, Integer> afterFlags = new HashMap<>(after.flagCount() * 2);
+        for (int flag = 0; flag < after.flagCount(); flag++) {
+            afterFlags.put(after.flagName(flag), flag);
+        }
+        for (int flag = 0; flag < before.flagCount(); flag++) {
+            afterFlagOf[flag] = afterFlags.getOrDefault(before.flagName(flag), -1);
+        }
+
+        i = 0;
+        j = 0;
+        while (i < before.size() || j < after.size()) {
+            if (j == after.size() || i < before.size() && before.id(i) < after.id(j)) {
+                listener.systemRemoved(before, i);
+                reportRemovedLanes(i, listener);
+                i++;
+            } else if (i == before.size() || after.id(j) < before.id(i)) {
+                listener.systemAdded(after, j);
+                reportAddedLanes(j, listener);
+                j++;
+            } else {
+                diffSystem(i++, j++, listener);
+            }
+        }
+    }
+
+    private void diffSystem(int i, int j, Listener listener) {
+        int id = before.id(i);
+        if (!before.name(i).equals(after.name(j))) {
+            listener.systemRenamed(id, before.name(i), after.name(j));
+        }
+        if (before.x(i) != after.x(j) || before.y(i) != after.y(j)) {
+            listener.systemMoved(id, before.x(i), before.y(i), after.x(j), after.y(j));
+        }
+
+        stamp++;
+        for (int k = before.flagStart(i); k < before.flagEnd(i); k++) {
+            int flag = afterFlagOf[before.flagAt(k)];
+            if (flag >= 0) {
+                flagMark[flag] = stamp;
+            }
+        }
+        for (int k = after.flagStart(j); k < after.flagEnd(j); k++) {
+            if (flagMark[after.flagAt(k)] != stamp) {
+                listener.flagAdded(id, after.flagName(after.flagAt(k)));
+            }
+        }
+        stamp++;
+        for (int k = after.flagStart(j); k < after.flagEnd(j); k++) {
+            flagMark[after.flagAt(k)] = stamp;
+        }
+        for (int k = before.flagStart(i); k < before.flagEnd(i); k++) {
+            int flag = afterFlagOf[before.flagAt(k)];
+            if (flag < 0 || flagMark[flag] != stamp) {
+                listener.flagRemoved(id, before.flagName(before.flagAt(k)));
+            }
+        }
+
+        for (int lane = after.laneStart(j); lane < after.laneEnd(j); lane++) {
+            laneMark[after.laneTarget(lane)] = stamp;
+        }
+        for (int lane = before.laneStart(i); lane < before.laneEnd(i); lane++) {
+            int target = before.laneTarget(lane);
+            int afterTarget = afterIndexOf[target];
+            if (afterTarget >= 0 && laneMark[afterTarget] == stamp) {
+                laneMatched[afterTarget] = stamp;
+            } else if (reportOnce(before, i, target)) {
+                listener.hyperlaneRemoved(id, before.id(target));
+            }
+        }
+        for (int lane = after.laneStart(j); lane < after.laneEnd(j); lane++) {
+            int target = after.laneTarget(lane);
+            if (laneMatched[target] != stamp && reportOnce(after, j, target)) {
+                listener.hyperlaneAdded(id, after.id(target));
+            }
+        }
+    }
+
+    private void reportRemovedLanes(int i, Listener listener) {
+        for (int lane = before.laneStart(i); lane < before.laneEnd(i); lane++) {
+            if (reportOnce(before, i, before.laneTarget(lane))) {
+                listener.hyperlaneRemoved(before.id(i), before.id(before.laneTarget(lane)));
+            }
+        }
+    }
+
+    private void reportAddedLanes(int j, Listener listener) {
+        for (int lane = after.laneStart(j); lane < after.laneEnd(j); lane++) {
+            if (reportOnce(after, j, after.laneTarget(lane))) {
+                listener.hyperlaneAdded(after.id(j), after.id(after.laneTarget(lane)));
+            }
+        }
+    }
+
+    // Hyperlanes are listed on both of their systems; report a pair from the lower id only.
+    private static boolean reportOnce(Galaxy galaxy, int from, int to) {
+        if (galaxy.id(from) < galaxy.id(to)) {
+            return true;
+        }
+        for (int lane = galaxy.laneStart(to); lane < galaxy.laneEnd(to); lane++) {
+            if (galaxy.laneTarget(lane) == from) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static class Report implements Listener {
+        private final Galaxy before;
+        private final Galaxy after;
+        private int changes;
+
+        public Report(Galaxy before, Galaxy after) {
+            this.before = before;
+            this.after = after;
+        }
+
+        public int changes() {
+            return changes;
+        }
+
+        private String name(int id) {
+            int index = after.indexOf(id);
+            return index >= 0 ? after.name(index) : before.name(before.indexOf(id));
+        }
+
+        private void print(String line) {
+            changes++;
+            System.out.println("   " + line);
+        }
+
+        @Override
+        public void systemAdded(Galaxy after, int index) {
+            print("+ system " + after.name(index) + " (" + after.id(index) + ")");
+        }
+
+        @Override
+        public void systemRemoved(Galaxy before, int index) {
+            print("- system " + before.name(index) + " (" + before.id(index) + ")");
+        }
+
+        @Override
+        public void systemRenamed(int id, String oldName, String newName) {
+            print("~ system " + id + " renamed " + oldName + " -> " + newName);
+        }
+
+        @Override
+        public void systemMoved(int id, double oldX, double oldY, double newX, double newY) {
+            print(String.format("~ system %s moved (%.3f, %.3f) -> (%.3f, %.3f)", name(id), oldX, oldY, newX, newY));
+        }
+
+        @Override
+        public void flagAdded(int id, String flag) {
+            print("+ flag " + flag + " on " + name(id));
+        }
+
+        @Override
+        public void flagRemoved(int id, String flag) {
+            print("- flag " + flag + " on " + name(id));
+        }
+
+        @Override
+        public void hyperlaneAdded(int fromId, int toId) {
+            print("+ hyperlane " + name(fromId) + " <-> " + name(toId));
+        }
+
+        @Override
+        public void hyperlaneRemoved(int fromId, int toId) {
+            print("- hyperlane " + name(fromId) + " <-> " + name(toId));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package monster.giz;
+
+import java.util.Arrays;
+
+public class GalaxyGeometry {
+
+    public static int[] convexHull(Galaxy galaxy) {
+        int n = galaxy.size();
+        int[] sorted = new int[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = i;
+        }
+        sortByCoordinates(galaxy, sorted, 0, n - 1);
+
+        if (n < 3) {
+            return sorted;
+        }
+
+        // Andrew's monotone chain: lower hull left to right, then upper hull back.
+        int[] hull = new int[2 * n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            while (size >= 2 && cross(galaxy, hull[size - 2], hull[size - 1], sorted[i]) <= 0) {
+                size--;
+            }
+            hull[size++] = sorted[i];
+        }
+        for (int i = n - 2, lowerSize = size + 1; i >= 0; i--) {
+            while (size >= lowerSize && cross(galaxy, hull[size - 2], hull[size - 1], sorted[i]) <= 0) {
+                size--;
+            }
+            hull[size++] = sorted[i];
+        }
+        return Arrays.copyOf(hull, size - 1);
+    }
+
+    public static double diameter(Galaxy galaxy) {
+        int[] hull = convexHull(galaxy);
+        int m = hull.length;
+        if (m < 2) {
+            return 0;
+        }
+        if (m == 2) {
+            return galaxy.distance(hull[0], hull[1]);
+        }
+
+        double best = 0;
+        int j = 1;
+        for (int i = 0; i < m; i++) {
+            int next = (i + 1) % m;
+            while (cross(galaxy, hull[i], hull[next], hull[(j + 1) % m]) > cross(galaxy, hull[i], hull[next], hull[j])) {
+                j = (j + 1) % m;
+            }
+            best = Math.max(best, Math.max(galaxy.distance(hull[i], hull[j]), galaxy.distance(hull[next], hull[j])));
+        }
+        return best;
+    }
+
+    public static double bruteForceDiameter(Galaxy galaxy) {
+        double maxDistance = 0;
+        for (int i = 0; i < galaxy.size(); i++) {
+            for (int j = i + 1; j < galaxy.size(); j++) {
+                double distance = galaxy.distance(i, j);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                }
+            }
+        }
+        return maxDistance;
+    }
+
+    private static void sortByCoordinates(Galaxy galaxy, int[] order, int low, int high) {
+        while (high - low > 16) {
+            int pivot = order[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compareCoordinates(galaxy, order[i], pivot) < 0) {
+                    i++;
+                }
+                while (compareCoordinates(galaxy, order[j], pivot) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i++] = order[j];
+                    order[j--] = swap;
+                }
+            }
+            if (j - low < high - i) {
+                sortByCoordinates(galaxy, order, low, j);
+                low = i;
+            } else {
+                sortByCoordinates(galaxy, order, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            int value = order[i];
+            int j = i - 1;
+            while (j >= low && compareCoordinates(galaxy, order[j], value) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = value;
+        }
+    }
+
+    private static int compareCoordinates(Galaxy galaxy, int a, int b) {
+        int byX = Double.compare(galaxy.x(a), galaxy.x(b));
+        return byX != 0 ? byX : Double.compare(galaxy.y(a), galaxy.y(b));
+    }
+
+    private static double cross(Galaxy galaxy, int o, int a, int b) {
+        return (galaxy.x(a) - galaxy.x(o)) * (galaxy.y(b) - galaxy.y(o))
+                - (galaxy.y(a) - galaxy.y(o)) * (galaxy.x(b) - galaxy.x(o));
+    }
+}
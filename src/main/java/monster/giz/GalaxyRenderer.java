@@ -0,0 +1,186 @@
+package monster.giz;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class GalaxyRenderer {
+
+    static {
+        // Rendering only ever targets images, so AWT must not try to reach a display.
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+    }
+
+    public static final int DEFAULT_TILE_SIZE = 1024;
+
+    private static final Color BACKGROUND = new Color(10, 12, 20);
+    private static final Color LANE = new Color(70, 80, 105);
+    private static final Color SYSTEM = new Color(200, 205, 215);
+    private static final Color POINT_OF_INTEREST = new Color(255, 190, 60);
+    private static final Color ROUTE = new Color(80, 200, 255);
+
+    private final Galaxy galaxy;
+    private final int tilesPerSide;
+    private final int tileSize;
+    private final double minX;
+    private final double minY;
+    private final double extent;
+    private final double scale;
+    private final boolean[] pointsOfInterest;
+    private final int[] laneOffsets;
+    private final int[] laneTargets;
+    // Only a long-lived renderer keeps base layers; a one-off writeTiles would hold every tile and never reuse one.
+    private final ConcurrentHashMap<Integer, BufferedImage> baseLayers;
+
+    public GalaxyRenderer(Galaxy galaxy, int tilesPerSide, int tileSize, int[] pointsOfInterest) {
+        this(galaxy, tilesPerSide, tileSize, pointsOfInterest, false);
+    }
+
+    public GalaxyRenderer(Galaxy galaxy, int tilesPerSide, int tileSize, int[] pointsOfInterest, boolean cacheBaseLayers) {
+        this.galaxy = galaxy;
+        this.tilesPerSide = tilesPerSide;
+        this.tileSize = tileSize;
+        this.baseLayers = cacheBaseLayers ? new ConcurrentHashMap<>() : null;
+        // The undirected, de-duplicated lanes, so a one-way lane stored only on its higher-index end is still drawn once.
+        this.laneOffsets = new int[galaxy.size() + 1];
+        this.laneTargets = GalaxyTopology.undirectedLanes(galaxy, laneOffsets);
+
+        double lowX = Double.POSITIVE_INFINITY, lowY = Double.POSITIVE_INFINITY;
+        double highX = Double.NEGATIVE_INFINITY, highY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < galaxy.size(); i++) {
+            lowX = Math.min(lowX, galaxy.x(i));
+            highX = Math.max(highX, galaxy.x(i));
+            lowY = Math.min(lowY, galaxy.y(i));
+            highY = Math.max(highY, galaxy.y(i));
+        }
+        // The diameter bounds both sides of the bounding box, so a square of that size around its centre holds every system.
+        this.extent = Math.max(1, Math.max(galaxy.diameter(), Math.max(highX - lowX, highY - lowY))) * 1.05;
+        this.minX = galaxy.size() > 0 ? (lowX + highX - extent) / 2 : -extent / 2;
+        this.minY = galaxy.size() > 0 ? (lowY + highY - extent) / 2 : -extent / 2;
+        this.scale = tilesPerSide * tileSize / extent;
+
+        this.pointsOfInterest = new boolean[galaxy.size()];
+        for (int index : pointsOfInterest) {
+            this.pointsOfInterest[index] = true;
+        }
+    }
+
+    public int tilesPerSide() {
+        return tilesPerSide;
+    }
+
+    public BufferedImage render(int row, int column, List<int[]> routes) {
+        BufferedImage base = baseLayer(row, column);
+        BufferedImage tile = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = tile.createGraphics();
+        graphics.drawImage(base, 0, 0, null);
+        if (!routes.isEmpty()) {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.translate(-column * tileSize, -row * tileSize);
+            graphics.setColor(ROUTE);
+            graphics.setStroke(new BasicStroke(2.5f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            double left = column * tileSize, top = row * tileSize;
+            for (int[] route : routes) {
+                for (int k = 1; k < route.length; k++) {
+                    Line2D.Double segment = new Line2D.Double(screenX(route[k - 1]), screenY(route[k - 1]),
+                            screenX(route[k]), screenY(route[k]));
+                    if (segment.intersects(left - 4, top - 4, tileSize + 8, tileSize + 8)) {
+                        graphics.draw(segment);
+                    }
+                }
+            }
+        }
+        graphics.dispose();
+        return tile;
+    }
+
+    public List<Path> writeTiles(Path directory, List<int[]> routes) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> written = new ArrayList<>();
+        for (int row = 0; row < tilesPerSide; row++) {
+            for (int column = 0; column < tilesPerSide; column++) {
+                Path file = directory.resolve("tile_" + row + "_" + column + ".png");
+                ImageIO.write(render(row, column, routes), "png", file.toFile());
+                written.add(file);
+            }
+        }
+        return written;
+    }
+
+    private BufferedImage baseLayer(int row, int column) {
+        if (baseLayers == null) {
+            return renderBaseLayer(row, column);
+        }
+        return baseLayers.computeIfAbsent(row * tilesPerSide + column, key -> renderBaseLayer(row, column));
+    }
+
+    private BufferedImage renderBaseLayer(int row, int column) {
+        BufferedImage image = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(BACKGROUND);
+        graphics.fillRect(0, 0, tileSize, tileSize);
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.translate(-column * tileSize, -row * tileSize);
+
+        // Screen x grows westwards in world units, matching the direction names used in the text report.
+        double maxWorldX = minX + extent - column * tileSize / scale;
+        double minWorldX = maxWorldX - tileSize / scale;
+        double minWorldY = minY + row * tileSize / scale;
+        double maxWorldY = minWorldY + tileSize / scale;
+        // Systems are taken from a wider margin so labels of points of interest just off the tile still show.
+        double systemMargin = 160 / scale;
+        double laneMargin = galaxy.longestLane() + 4 / scale;
+
+        // Any lane crossing this tile has both ends within one longest lane of it, so each is drawn once from its lower index.
+        graphics.setColor(LANE);
+        graphics.setStroke(new BasicStroke(1f));
+        galaxy.spatialIndex().forEachWithinBox(minWorldX - laneMargin, minWorldY - laneMargin,
+                maxWorldX + laneMargin, maxWorldY + laneMargin, index -> {
+                    for (int lane = laneOffsets[index]; lane < laneOffsets[index + 1]; lane++) {
+                        int target = laneTargets[lane];
+                        if (index < target) {
+                            graphics.draw(new Line2D.Double(screenX(index), screenY(index), screenX(target), screenY(target)));
+                        }
+                    }
+                });
+
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+        galaxy.spatialIndex().forEachWithinBox(minWorldX - systemMargin, minWorldY - systemMargin,
+                maxWorldX + systemMargin, maxWorldY + systemMargin, index -> {
+                    double x = screenX(index);
+                    double y = screenY(index);
+                    if (pointsOfInterest[index]) {
+                        graphics.setColor(POINT_OF_INTEREST);
+                        graphics.fillOval((int) Math.round(x) - 4, (int) Math.round(y) - 4, 8, 8);
+                        graphics.drawString(galaxy.name(index), (int) Math.round(x) + 6, (int) Math.round(y) - 6);
+                    } else {
+                        graphics.setColor(SYSTEM);
+                        graphics.fillOval((int) Math.round(x) - 1, (int) Math.round(y) - 1, 3, 3);
+                    }
+                });
+        graphics.dispose();
+        return image;
+    }
+
+    private double screenX(int index) {
+        return (minX + extent - galaxy.x(index)) * scale;
+    }
+
+    private double screenY(int index) {
+        return (galaxy.y(index) - minY) * scale;
+    }
+}
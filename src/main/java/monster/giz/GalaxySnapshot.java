@@ -0,0 +1,220 @@
+package monster.giz;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+
+public class GalaxySnapshot {
+
+    public static final int MAGIC = 0x53504758; // "SPGX"
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".galaxy";
+
+    public static Path snapshotPath(Path cacheDir, Path savePath) {
+        Path absoluteSave = savePath.toAbsolutePath().normalize();
+        Path folder = absoluteSave.getParent() != null ? absoluteSave.getParent().getFileName() : null;
+        String prefix = folder != null ? folder.toString() : "save";
+        return cacheDir.resolve(prefix + "_" + Integer.toHexString(absoluteSave.toString().hashCode()) + EXTENSION);
+    }
+
+    public static Galaxy load(Path cacheDir, Path savePath) throws IOException {
+        Path snapshotPath = snapshotPath(cacheDir, savePath);
+        if (!Files.exists(snapshotPath)) {
+            return null;
+        }
+
+        try {
+            return read(readFully(snapshotPath), savePath);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static ByteBuffer readFully(Path snapshotPath) throws IOException {
+        // Read onto the heap rather than mapping, so no mapping keeps the file locked when save() later replaces it.
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            return buffer.flip();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Snapshot too large: " + snapshotPath, e);
+        }
+    }
+
+    private static Galaxy read(ByteBuffer buffer, Path savePath) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return null;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(savePath, BasicFileAttributes.class);
+        long saveSize = buffer.getLong();
+        long saveModified = buffer.getLong();
+        String saveKey = readString(buffer);
+        if (saveSize != attributes.size()
+                || saveModified != attributes.lastModifiedTime().toMillis()
+                || !saveKey.equals(savePath.toAbsolutePath().normalize().toString())) {
+            return null;
+        }
+
+        // Every count is checked against the bytes left, so a corrupt file is a cache miss rather than a huge allocation.
+        int systemCount = readCount(buffer, 4 + 8 + 8 + 4 + 4 + 4);
+        int flagCount = readCount(buffer, 4);
+        int flagRefCount = readCount(buffer, 4);
+        int laneCount = readCount(buffer, 4);
+
+        String[] flagNames = new String[flagCount];
+        for (int i = 0; i < flagCount; i++) {
+            flagNames[i] = readString(buffer);
+        }
+        int[] ids = readInts(buffer, systemCount);
+        double[] xs = readDoubles(buffer, systemCount);
+        double[] ys = readDoubles(buffer, systemCount);
+        int[] flagOffsets = readInts(buffer, systemCount + 1);
+        int[] flagIds = readInts(buffer, flagRefCount);
+        int[] laneOffsets = readInts(buffer, systemCount + 1);
+        int[] laneTargets = readInts(buffer, laneCount);
+        String[] names = new String[systemCount];
+        for (int i = 0; i < systemCount; i++) {
+            names[i] = readString(buffer);
+        }
+        checkAscending(ids);
+        checkOffsets(flagOffsets, flagRefCount);
+        checkRange(flagIds, flagCount);
+        checkOffsets(laneOffsets, laneCount);
+        checkRange(laneTargets, systemCount);
+
+        return Galaxy.fromSortedArrays(ids, names, xs, ys, flagNames, flagOffsets, flagIds, laneOffsets, laneTargets);
+    }
+
+    public static void save(Path cacheDir, Path savePath, Galaxy galaxy) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(savePath, BasicFileAttributes.class);
+        byte[] saveKey = savePath.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8);
+
+        int systemCount = galaxy.size();
+        byte[][] flagNames = new byte[galaxy.flagCount()][];
+        byte[][] names = new byte[systemCount][];
+        long size = 4 + 4 + 8 + 8 + 4 + saveKey.length + 4 * 4;
+        for (int i = 0; i < flagNames.length; i++) {
+            flagNames[i] = galaxy.flagName(i).getBytes(StandardCharsets.UTF_8);
+            size += 4 + flagNames[i].length;
+        }
+        for (int i = 0; i < systemCount; i++) {
+            names[i] = galaxy.name(i).getBytes(StandardCharsets.UTF_8);
+            size += 4 + names[i].length;
+        }
+        int flagRefCount = galaxy.flagReferenceCount();
+        size += 4L * systemCount + 16L * systemCount + 8L * (systemCount + 1)
+                + 4L * flagRefCount + 4L * galaxy.laneCount();
+
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size));
+        buffer.putInt(MAGIC).putInt(VERSION);
+        buffer.putLong(attributes.size()).putLong(attributes.lastModifiedTime().toMillis());
+        buffer.putInt(saveKey.length).put(saveKey);
+        buffer.putInt(systemCount).putInt(flagNames.length).putInt(flagRefCount).putInt(galaxy.laneCount());
+        for (byte[] flagName : flagNames) {
+            buffer.putInt(flagName.length).put(flagName);
+        }
+        for (int i = 0; i < systemCount; i++) {
+            buffer.putInt(galaxy.id(i));
+        }
+        for (int i = 0; i < systemCount; i++) {
+            buffer.putDouble(galaxy.x(i));
+        }
+        for (int i = 0; i < systemCount; i++) {
+            buffer.putDouble(galaxy.y(i));
+        }
+        buffer.putInt(0);
+        for (int i = 0; i < systemCount; i++) {
+            buffer.putInt(galaxy.flagEnd(i));
+        }
+        for (int k = 0; k < flagRefCount; k++) {
+            buffer.putInt(galaxy.flagAt(k));
+        }
+        buffer.putInt(0);
+        for (int i = 0; i < systemCount; i++) {
+            buffer.putInt(galaxy.laneEnd(i));
+        }
+        for (int k = 0; k < galaxy.laneCount(); k++) {
+            buffer.putInt(galaxy.laneTarget(k));
+        }
+        for (byte[] name : names) {
+            buffer.putInt(name.length).put(name);
+        }
+        buffer.flip();
+
+        Files.createDirectories(cacheDir);
+        Path snapshotPath = snapshotPath(cacheDir, savePath);
+        Path temporaryPath = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temporaryPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int readCount(ByteBuffer buffer, int bytesPerItem) {
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * bytesPerItem > buffer.remaining()) {
+            throw new IllegalArgumentException("Corrupt snapshot count: " + count);
+        }
+        return count;
+    }
+
+    private static void checkAscending(int[] ids) {
+        // Galaxy looks systems up by id assuming sorted, non-negative ids.
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] < 0 || (i > 0 && ids[i] <= ids[i - 1])) {
+                throw new IllegalArgumentException("Corrupt snapshot id: " + ids[i]);
+            }
+        }
+    }
+
+    private static void checkOffsets(int[] offsets, int total) {
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != total) {
+            throw new IllegalArgumentException("Corrupt snapshot offsets");
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) {
+                throw new IllegalArgumentException("Corrupt snapshot offsets");
+            }
+        }
+    }
+
+    private static void checkRange(int[] values, int bound) {
+        for (int value : values) {
+            if (value < 0 || value >= bound) {
+                throw new IllegalArgumentException("Corrupt snapshot reference: " + value);
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[readCount(buffer, 1)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + 4 * count);
+        return values;
+    }
+
+    private static double[] readDoubles(ByteBuffer buffer, int count) {
+        double[] values = new double[count];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + 8 * count);
+        return values;
+    }
+}
@@ -0,0 +1,288 @@
+package monster.giz;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class GalaxyTopology {
+
+    private final int size;
+
+    // Undirected, de-duplicated copy of the hyperlanes, so one-way or repeated lanes cannot fake a cycle.
+    private final int[] offsets;
+    private final int[] targets;
+
+    private final int[] component;
+    private final int[] componentSizes;
+    private final boolean[] articulation;
+    private final boolean[] bridgeLane;
+    private int bridgeCount;
+
+    private final int[] pocketOf;
+    private final List<Pocket> pockets = new ArrayList<>();
+
+    public GalaxyTopology(Galaxy galaxy) {
+        this.size = galaxy.size();
+        this.offsets = new int[size + 1];
+        this.targets = undirectedLanes(galaxy, offsets);
+        this.component = new int[size];
+        this.articulation = new boolean[size];
+        this.bridgeLane = new boolean[targets.length];
+        this.componentSizes = findBridgesAndArticulations();
+        this.pocketOf = new int[size];
+        findPockets();
+    }
+
+    public static int hyperlaneCount(Galaxy galaxy) {
+        // Distinct system pairs, whether the save stores a lane in one direction or both.
+        return undirectedLanes(galaxy, new int[galaxy.size() + 1]).length / 2;
+    }
+
+    static int[] undirectedLanes(Galaxy galaxy, int[] offsets) {
+        int size = galaxy.size();
+        int[] degree = new int[size];
+        for (int i = 0; i < size; i++) {
+            for (int lane = galaxy.laneStart(i); lane < galaxy.laneEnd(i); lane++) {
+                int target = galaxy.laneTarget(lane);
+                if (target != i) {
+                    degree[i]++;
+                    degree[target]++;
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] = offsets[i] + degree[i];
+        }
+        int[] fill = Arrays.copyOf(offsets, size);
+        int[] targets = new int[offsets[size]];
+        for (int i = 0; i < size; i++) {
+            for (int lane = galaxy.laneStart(i); lane < galaxy.laneEnd(i); lane++) {
+                int target = galaxy.laneTarget(lane);
+                if (target != i) {
+                    targets[fill[i]++] = target;
+                    targets[fill[target]++] = i;
+                }
+            }
+        }
+
+        // Sort each neighbour list and squeeze out duplicates in place.
+        int write = 0;
+        int start = 0;
+        for (int i = 0; i < size; i++) {
+            int end = offsets[i + 1];
+            Arrays.sort(targets, start, end);
+            offsets[i] = write;
+            for (int k = start; k < end; k++) {
+                if (k == start || targets[k] != targets[k - 1]) {
+                    targets[write++] = targets[k];
+                }
+            }
+            start = end;
+        }
+        offsets[size] = write;
+        return Arrays.copyOf(targets, write);
+    }
+
+    private int[] findBridgesAndArticulations() {
+        // Iterative Tarjan, so the deepest hyperlane chains cannot overflow the call stack.
+        int[] discovered = new int[size];
+        int[] low = new int[size];
+        int[] parent = new int[size];
+        int[] nextLane = new int[size];
+        int[] stack = new int[size];
+        int[] sizes = new int[size];
+        int componentCount = 0;
+        int time = 0;
+
+        for (int root = 0; root < size; root++) {
+            if (discovered[root] != 0) {
+                continue;
+            }
+            int componentId = componentCount++;
+            int rootChildren = 0;
+            int top = 0;
+            stack[top++] = root;
+            parent[root] = -1;
+            discovered[root] = low[root] = ++time;
+            nextLane[root] = offsets[root];
+            component[root] = componentId;
+            sizes[componentId]++;
+
+            while (top > 0) {
+                int system = stack[top - 1];
+                if (nextLane[system] < offsets[system + 1]) {
+                    int target = targets[nextLane[system]++];
+                    if (discovered[target] == 0) {
+                        parent[target] = system;
+                        discovered[target] = low[target] = ++time;
+                        nextLane[target] = offsets[target];
+                        component[target] = componentId;
+                        sizes[componentId]++;
+                        stack[top++] = target;
+                        if (system == root) {
+                            rootChildren++;
+                        }
+                    } else if (target != parent[system]) {
+                        low[system] = Math.min(low[system], discovered[target]);
+                    }
+                    continue;
+                }
+
+                top--;
+                int from = parent[system];
+                if (from < 0) {
+                    continue;
+                }
+                low[from] = Math.min(low[from], low[system]);
+                if (low[system] > discovered[from]) {
+                    markBridge(from, system);
+                    markBridge(system, from);
+                    bridgeCount++;
+                }
+                if (from != root && low[system] >= discovered[from]) {
+                    articulation[from] = true;
+                }
+            }
+            articulation[root] = rootChildren > 1;
+        }
+        return Arrays.copyOf(sizes, componentCount);
+    }
+
+    private void markBridge(int from, int to) {
+        int lane = Arrays.binarySearch(targets, offsets[from], offsets[from + 1], to);
+        bridgeLane[lane] = true;
+    }
+
+    private void findPockets() {
+        // Systems joined by non-bridge lanes form two-edge-connected blocks; the largest block of each component is its core.
+        int[] block = new int[size];
+        Arrays.fill(block, -1);
+        int[] queue = new int[size];
+        List<Integer> blockSizes = new ArrayList<>();
+        for (int start = 0; start < size; start++) {
+            if (block[start] >= 0) {
+                continue;
+            }
+            int blockId = blockSizes.size();
+            int count = flood(start, blockId, block, queue, false);
+            blockSizes.add(count);
+        }
+
+        int[] core = new int[componentSizes.length];
+        Arrays.fill(core, -1);
+        for (int i = 0; i < size; i++) {
+            int current = core[component[i]];
+            if (current < 0 || blockSizes.get(block[i]) > blockSizes.get(current)) {
+                core[component[i]] = block[i];
+            }
+        }
+
+        // Each bridge leaving a core opens a dead-end pocket: everything behind it is reachable only through that lane.
+        Arrays.fill(pocketOf, -1);
+        for (int mouth = 0; mouth < size; mouth++) {
+            if (block[mouth] != core[component[mouth]]) {
+                continue;
+            }
+            for (int lane = offsets[mouth]; lane < offsets[mouth + 1]; lane++) {
+                int entrance = targets[lane];
+                if (bridgeLane[lane] && pocketOf[entrance] < 0) {
+                    pocketOf[mouth] = -2;
+                    int pocketSize = flood(entrance, pockets.size(), pocketOf, queue, true);
+                    pockets.add(new Pocket(mouth, entrance, pocketSize));
+                }
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (pocketOf[i] == -2) {
+                pocketOf[i] = -1;
+            }
+        }
+    }
+
+    private int flood(int start, int label, int[] labels, int[] queue, boolean crossBridges) {
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        labels[start] = label;
+        while (head < tail) {
+            int system = queue[head++];
+            for (int lane = offsets[system]; lane < offsets[system + 1]; lane++) {
+                int target = targets[lane];
+                if (labels[target] == -1 && (crossBridges || !bridgeLane[lane])) {
+                    labels[target] = label;
+                    queue[tail++] = target;
+                }
+            }
+        }
+        return tail;
+    }
+
+    public int componentCount() {
+        return componentSizes.length;
+    }
+
+    public int component(int index) {
+        return component[index];
+    }
+
+    public int componentSize(int componentId) {
+        return componentSizes[componentId];
+    }
+
+    public boolean isArticulationPoint(int index) {
+        return articulation[index];
+    }
+
+    public int[] articulationPoints() {
+        int count = 0;
+        for (boolean point : articulation) {
+            if (point) {
+                count++;
+            }
+        }
+        int[] points = new int[count];
+        for (int i = 0, k = 0; i < size; i++) {
+            if (articulation[i]) {
+                points[k++] = i;
+            }
+        }
+        return points;
+    }
+
+    public int bridgeCount() {
+        return bridgeCount;
+    }
+
+    public int[][] bridges() {
+        int[][] bridges = new int[bridgeCount][];
+        int k = 0;
+        for (int i = 0; i < size; i++) {
+            for (int lane = offsets[i]; lane < offsets[i + 1]; lane++) {
+                if (bridgeLane[lane] && i < targets[lane]) {
+                    bridges[k++] = new int[]{i, targets[lane]};
+                }
+            }
+        }
+        return bridges;
+    }
+
+    public List<Pocket> pockets() {
+        return pockets;
+    }
+
+    public int pocketOf(int index) {
+        return pocketOf[index];
+    }
+
+    public static class Pocket {
+        public final int mouth;
+        public final int entrance;
+        public final int size;
+
+        Pocket(int mouth, int entrance, int size) {
+            this.mouth = mouth;
+            this.entrance = entrance;
+            this.size = size;
+        }
+    }
+}
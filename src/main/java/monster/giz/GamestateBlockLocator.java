@@ -0,0 +1,193 @@
+package monster.giz;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class GamestateBlockLocator {
+
+    private static final int SEEK_KEY = 0;
+    private static final int EXPECT_EQUALS = 1;
+    private static final int EXPECT_OPEN = 2;
+
+    private final byte[] key;
+
+    private int depth;
+    private boolean inQuote;
+    private boolean escaped;
+    private boolean inComment;
+    private int stage = SEEK_KEY;
+    private int matched;
+
+    public GamestateBlockLocator(String key) {
+        this.key = key.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public static MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    public static ByteBuffer locate(ByteBuffer gamestate, String key) {
+        GamestateBlockLocator locator = new GamestateBlockLocator(key);
+        int open = locator.findOpen(gamestate, gamestate.position(), gamestate.limit());
+        if (open < 0) {
+            return null;
+        }
+        int close = locator.findClose(gamestate, open + 1, gamestate.limit());
+        if (close < 0) {
+            return null;
+        }
+        return gamestate.slice(open, close + 1 - open);
+    }
+
+    public static ByteBuffer capture(InputStream gamestate, String key) throws IOException {
+        GamestateBlockLocator locator = new GamestateBlockLocator(key);
+        byte[] chunk = new byte[1 << 16];
+        ByteBuffer wrappedChunk = ByteBuffer.wrap(chunk);
+
+        byte[] block = null;
+        int blockSize = 0;
+        int read;
+        while ((read = gamestate.read(chunk)) > 0) {
+            int from = 0;
+            int scanFrom = 0;
+            if (block == null) {
+                int open = locator.findOpen(wrappedChunk, 0, read);
+                if (open < 0) {
+                    continue;
+                }
+                block = new byte[1 << 20];
+                from = open;
+                scanFrom = open + 1;
+            }
+
+            int close = locator.findClose(wrappedChunk, scanFrom, read);
+            int to = close >= 0 ? close + 1 : read;
+            if (blockSize + to - from > block.length) {
+                block = Arrays.copyOf(block, Math.max(block.length * 2, blockSize + to - from));
+            }
+            System.arraycopy(chunk, from, block, blockSize, to - from);
+            blockSize += to - from;
+
+            if (close >= 0) {
+                return ByteBuffer.wrap(block, 0, blockSize).slice();
+            }
+        }
+        return null;
+    }
+
+    public int findOpen(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+
+            if (inComment) {
+                if (b == '\n') {
+                    inComment = false;
+                    matched = 0;
+                }
+                continue;
+            }
+            if (inQuote) {
+                skipQuotedByte(b);
+                continue;
+            }
+
+            if (depth > 0) {
+                if (b == '{') {
+                    depth++;
+                } else if (b == '}') {
+                    if (--depth == 0) {
+                        matched = 0;
+                    }
+                } else if (b == '"') {
+                    inQuote = true;
+                } else if (b == '#') {
+                    inComment = true;
+                }
+                continue;
+            }
+
+            switch (b) {
+                case ' ', '\t', '\r', '\n' -> {
+                    if (stage == SEEK_KEY && matched == key.length) {
+                        stage = EXPECT_EQUALS;
+                    }
+                    matched = 0;
+                }
+                case '=' -> {
+                    stage = stage == EXPECT_EQUALS || (stage == SEEK_KEY && matched == key.length) ? EXPECT_OPEN : SEEK_KEY;
+                    matched = 0;
+                }
+                case '{' -> {
+                    if (stage == EXPECT_OPEN) {
+                        stage = SEEK_KEY;
+                        depth = 1;
+                        return i;
+                    }
+                    depth = 1;
+                    stage = SEEK_KEY;
+                }
+                case '}' -> {
+                    stage = SEEK_KEY;
+                    matched = 0;
+                }
+                case '"' -> {
+                    inQuote = true;
+                    stage = SEEK_KEY;
+                    matched = -1;
+                }
+                case '#' -> inComment = true;
+                default -> {
+                    if (stage != SEEK_KEY) {
+                        stage = SEEK_KEY;
+                        matched = -1;
+                    }
+                    matched = matched >= 0 && matched < key.length && key[matched] == b ? matched + 1 : -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    public int findClose(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (inComment) {
+                if (b == '\n') {
+                    inComment = false;
+                }
+            } else if (inQuote) {
+                skipQuotedByte(b);
+            } else if (b == '{') {
+                depth++;
+            } else if (b == '}') {
+                if (--depth == 0) {
+                    return i;
+                }
+            } else if (b == '"') {
+                inQuote = true;
+            } else if (b == '#') {
+                inComment = true;
+            }
+        }
+        return -1;
+    }
+
+    private void skipQuotedByte(byte b) {
+        if (escaped) {
+            escaped = false;
+        } else if (b == '\\') {
+            escaped = true;
+        } else if (b == '"') {
+            inQuote = false;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package monster.giz;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public class GamestateDocument {
+
+    public static final String EXTENSION = ".gamestate";
+
+    private final ByteBuffer buffer;
+    private final Node root;
+
+    public GamestateDocument(ByteBuffer gamestate) {
+        this.buffer = gamestate;
+        this.root = new Node(gamestate, gamestate.position(), gamestate.limit());
+
+        // One pass over the whole file: the top-level keys and the numbered children of every top-level block.
+        ClausewitzTokenizer tokenizer = new ClausewitzTokenizer(gamestate.duplicate());
+        root.index(tokenizer, true);
+    }
+
+    public static GamestateDocument open(Path gamestatePath) throws IOException {
+        return new GamestateDocument(GamestateBlockLocator.map(gamestatePath));
+    }
+
+    public static GamestateDocument fromSave(Path ironmanSavePath, Path workDir) throws IOException {
+        return open(extractGamestate(ironmanSavePath, workDir));
+    }
+
+    public static Path extractGamestate(Path ironmanSavePath, Path workDir) throws IOException {
+        Path absoluteSave = ironmanSavePath.toAbsolutePath().normalize();
+        Path folder = absoluteSave.getParent() != null ? absoluteSave.getParent().getFileName() : null;
+        String prefix = folder != null ? folder.toString() : "save";
+        // The save's mtime is part of the name, so a newer save never has to replace a file an open document still maps.
+        long saveModified = Files.getLastModifiedTime(ironmanSavePath).toMillis();
+        Path gamestatePath = workDir.resolve(prefix + "_" + Integer.toHexString(absoluteSave.toString().hashCode())
+                + "_" + Long.toHexString(saveModified) + EXTENSION);
+        if (Files.exists(gamestatePath)) {
+            return gamestatePath;
+        }
+
+        Files.createDirectories(workDir);
+        Path temporaryPath = gamestatePath.resolveSibling(gamestatePath.getFileName() + ".tmp");
+        try (ZipFile zipFile = new ZipFile(ironmanSavePath.toFile())) {
+            ZipEntry gamestateEntry = zipFile.getEntry(StellarisSaveAnalyzer.GAMESTATE_ENTRY);
+            if (gamestateEntry == null) {
+                throw new NoSuchFileException(ironmanSavePath + "!/" + StellarisSaveAnalyzer.GAMESTATE_ENTRY);
+            }
+            try (InputStream gamestate = zipFile.getInputStream(gamestateEntry)) {
+                Files.copy(gamestate, temporaryPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(temporaryPath, gamestatePath, StandardCopyOption.ATOMIC_MOVE);
+        deleteStaleExtractions(workDir, gamestatePath);
+        return gamestatePath;
+    }
+
+    private static void deleteStaleExtractions(Path workDir, Path keep) throws IOException {
+        // Each extraction is hundreds of MB, so only the most recent one is kept.
+        try (DirectoryStream<Path> extractions = Files.newDirectoryStream(workDir, "*" + EXTENSION + "{,.tmp}")) {
+            for (Path extraction : extractions) {
+                if (extraction.equals(keep)) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(extraction);
+                } catch (IOException e) {
+                    // Still mapped by a live document; the next extraction tries again.
+                }
+            }
+        }
+    }
+
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    public Node root() {
+        return root;
+    }
+
+    public Node get(String key) {
+        return root.get(key);
+    }
+
+    public List<String> keys() {
+        return root.keys();
+    }
+
+    public static class Node {
+
+        private final ByteBuffer buffer;
+        private final int start;
+        private int end;
+
+        private boolean indexed;
+        private int keyedCount;
+        private String[] keys;
+        private int[] keyedStarts;
+        private int[] keyedEnds;
+        private Node[] keyedNodes;
+
+        private int childCount;
+        private long[] childIds;
+        private int[] childStarts;
+        private int[] childEnds;
+        private int[] childOrder;
+
+        private int elementCount;
+        private int[] elementStarts;
+        private int[] elementEnds;
+
+        Node(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+        }
+
+        public int start() {
+            return start;
+        }
+
+        public int end() {
+            return end;
+        }
+
+        public boolean isBlock() {
+            return start < end && buffer.get(start) == '{';
+        }
+
+        public String text() {
+            if (isBlock()) {
+                return null;
+            }
+            ClausewitzTokenizer tokenizer = new ClausewitzTokenizer(buffer.duplicate().position(start).limit(end));
+            tokenizer.next();
+            return tokenizer.tokenAsString();
+        }
+
+        public long asLong() {
+            ClausewitzTokenizer tokenizer = new ClausewitzTokenizer(buffer.duplicate().position(start).limit(end));
+            tokenizer.next();
+            return tokenizer.tokenAsLong();
+        }
+
+        public double asDouble() {
+            ClausewitzTokenizer tokenizer = new ClausewitzTokenizer(buffer.duplicate().position(start).limit(end));
+            tokenizer.next();
+            return tokenizer.tokenAsDouble();
+        }
+
+        public Node get(String key) {
+            ensureIndexed();
+            for (int i = 0; i < keyedCount; i++) {
+                if (keys[i].equals(key)) {
+                    return keyedNode(i);
+                }
+            }
+            return null;
+        }
+
+        public List<Node> getAll(String key) {
+            ensureIndexed();
+            List<Node> nodes = new ArrayList<>();
+            for (int i = 0; i < keyedCount; i++) {
+                if (keys[i].equals(key)) {
+                    nodes.add(keyedNode(i));
+                }
+            }
+            return nodes;
+        }
+
+        public String getText(String key) {
+            Node node = get(key);
+            return node != null ? node.text() : null;
+        }
+
+        public List<String> keys() {
+            ensureIndexed();
+            return new ArrayList<>(new LinkedHashSet<>(Arrays.asList(keys).subList(0, keyedCount)));
+        }
+
+        public int childCount() {
+            ensureIndexed();
+            return childCount;
+        }
+
+        public long childId(int position) {
+            ensureIndexed();
+            return childIds[position];
+        }
+
+        public Node child(int position) {
+            ensureIndexed();
+            return new Node(buffer, childStarts[position], childEnds[position]);
+        }
+
+        public Node childById(long id) {
+            ensureIndexed();
+            int low = 0;
+            int high = childCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int position = childOrder != null ? childOrder[mid] : mid;
+                if (childIds[position] < id) {
+                    low = mid + 1;
+                } else if (childIds[position] > id) {
+                    high = mid - 1;
+                } else {
+                    return child(position);
+                }
+            }
+            return null;
+        }
+
+        public int elementCount() {
+            ensureIndexed();
+            return elementCount;
+        }
+
+        public Node element(int position) {
+            ensureIndexed();
+            return new Node(buffer, elementStarts[position], elementEnds[position]);
+        }
+
+        public long[] elementsAsLongs() {
+            ensureIndexed();
+            long[] values = new long[elementCount];
+            for (int i = 0; i < elementCount; i++) {
+                values[i] = element(i).asLong();
+            }
+            return values;
+        }
+
+        private Node keyedNode(int i) {
+            if (keyedNodes[i] == null) {
+                keyedNodes[i] = new Node(buffer, keyedStarts[i], keyedEnds[i]);
+            }
+            return keyedNodes[i];
+        }
+
+        private void ensureIndexed() {
+            if (indexed) {
+                return;
+            }
+            if (!isBlock()) {
+                indexed = true;
+                keys = new String[0];
+                keyedNodes = new Node[0];
+                return;
+            }
+            index(new ClausewitzTokenizer(buffer.duplicate().position(start + 1).limit(end)), false);
+        }
+
+        private void index(ClausewitzTokenizer tokenizer, boolean indexBlockValues) {
+            keys = new String[8];
+            keyedStarts = new int[8];
+            keyedEnds = new int[8];
+            keyedNodes = new Node[8];
+            childIds = new long[8];
+            childStarts = new int[8];
+            childEnds = new int[8];
+            elementStarts = new int[8];
+            elementEnds = new int[8];
+            boolean childrenSorted = true;
+
+            while (true) {
+                int type = tokenizer.next();
+                if (type == ClausewitzTokenizer.EOF || type == ClausewitzTokenizer.CLOSE) {
+                    break;
+                }
+                if (type == ClausewitzTokenizer.OPEN) {
+                    int elementStart = tokenizer.tokenStart();
+                    tokenizer.skipBlock();
+                    addElement(elementStart, tokenizer.position());
+                    continue;
+                }
+
+                int keyStart = type == ClausewitzTokenizer.QUOTED ? tokenizer.tokenStart() - 1 : tokenizer.tokenStart();
+                boolean numbered = tokenizer.isIntegerToken();
+                long id = numbered ? tokenizer.tokenAsLong() : 0;
+                String key = numbered ? null : tokenizer.tokenAsString();
+                if (!tokenizer.consumeEquals()) {
+                    addElement(keyStart, tokenizer.position());
+                    continue;
+                }
+
+                int valueType = tokenizer.next();
+                if (valueType == ClausewitzTokenizer.EOF || valueType == ClausewitzTokenizer.CLOSE) {
+                    break;
+                }
+                int valueStart = valueType == ClausewitzTokenizer.QUOTED ? tokenizer.tokenStart() - 1 : tokenizer.tokenStart();
+                Node indexedValue = null;
+                if (valueType == ClausewitzTokenizer.OPEN) {
+                    if (indexBlockValues && !numbered) {
+                        indexedValue = new Node(buffer, valueStart, -1);
+                        indexedValue.index(tokenizer, false);
+                        indexedValue.end = tokenizer.position();
+                    } else {
+                        tokenizer.skipBlock();
+                    }
+                }
+                int valueEnd = tokenizer.position();
+
+                if (numbered) {
+                    if (childCount == childIds.length) {
+                        childIds = Arrays.copyOf(childIds, childCount * 2);
+                        childStarts = Arrays.copyOf(childStarts, childCount * 2);
+                        childEnds = Arrays.copyOf(childEnds, childCount * 2);
+                    }
+                    childrenSorted &= childCount == 0 || childIds[childCount - 1] < id;
+                    childIds[childCount] = id;
+                    childStarts[childCount] = valueStart;
+                    childEnds[childCount] = valueEnd;
+                    childCount++;
+                } else {
+                    if (keyedCount == keys.length) {
+                        keys = Arrays.copyOf(keys, keyedCount * 2);
+                        keyedStarts = Arrays.copyOf(keyedStarts, keyedCount * 2);
+                        keyedEnds = Arrays.copyOf(keyedEnds, keyedCount * 2);
+                        keyedNodes = Arrays.copyOf(keyedNodes, keyedCount * 2);
+                    }
+                    keys[keyedCount] = key;
+                    keyedStarts[keyedCount] = valueStart;
+                    keyedEnds[keyedCount] = valueEnd;
+                    keyedNodes[keyedCount] = indexedValue;
+                    keyedCount++;
+                }
+            }
+
+            if (!childrenSorted) {
+                // Saves list ids in ascending order; only fall back to a sorted permutation when they do not.
+                childOrder = IntStream.range(0, childCount).boxed()
+                        .sorted(Comparator.comparingLong(position -> childIds[position]))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+            }
+            indexed = true;
+        }
+
+        private void addElement(int elementStart, int elementEnd) {
+            if (elementCount == elementStarts.length) {
+                elementStarts = Arrays.copyOf(elementStarts, elementCount * 2);
+                elementEnds = Arrays.copyOf(elementEnds, elementCount * 2);
+            }
+            elementStarts[elementCount] = elementStart;
+            elementEnds[elementCount] = elementEnd;
+            elementCount++;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package monster.giz;
+
+import java.util.Arrays;
+
+class MinHeap {
+
+    // Binary heap of system indexes keyed by cost; stale duplicates are left in and skipped by the caller when popped.
+    private int[] nodes = new int[64];
+    private double[] keys = new double[64];
+    private int size;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void push(int node, double key) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parentSlot = (i - 1) >>> 1;
+            if (keys[parentSlot] <= key) {
+                break;
+            }
+            nodes[i] = nodes[parentSlot];
+            keys[i] = keys[parentSlot];
+            i = parentSlot;
+        }
+        nodes[i] = node;
+        keys[i] = key;
+    }
+
+    int pop() {
+        int top = nodes[0];
+        int lastNode = nodes[--size];
+        double lastKey = keys[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (keys[child] >= lastKey) {
+                break;
+            }
+            nodes[i] = nodes[child];
+            keys[i] = keys[child];
+            i = child;
+        }
+        nodes[i] = lastNode;
+        keys[i] = lastKey;
+        return top;
+    }
+}
@@ -0,0 +1,160 @@
+package monster.giz;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class NameIndex {
+
+    private static final String NAME_PREFIX = "name_";
+
+    private final Galaxy galaxy;
+    private final Map<String, Integer> exact;
+
+    // BK-tree over the distinct folded names; children are kept as linked sibling lists.
+    private final String[] keys;
+    private final int[] keySystems;
+    private final int[] parentDistance;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private int nodeCount;
+
+    public NameIndex(Galaxy galaxy) {
+        this.galaxy = galaxy;
+        int size = galaxy.size();
+        this.exact = new HashMap<>(size * 4);
+        // Literal names win over their folded forms, and earlier systems over later ones, as with the old linear scan.
+        for (int i = 0; i < size; i++) {
+            exact.putIfAbsent(galaxy.name(i).toLowerCase(Locale.ROOT), i);
+        }
+        for (int i = 0; i < size; i++) {
+            exact.putIfAbsent(fold(galaxy.name(i)), i);
+        }
+
+        this.keys = new String[size];
+        this.keySystems = new int[size];
+        this.parentDistance = new int[size];
+        this.firstChild = new int[size];
+        this.nextSibling = new int[size];
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(nextSibling, -1);
+        for (int i = 0; i < size; i++) {
+            insert(fold(galaxy.name(i)), i);
+        }
+    }
+
+    public long estimatedBytes() {
+        // Hash table slots, then a node, boxed index and key string per exact entry, then the BK-tree arrays and keys.
+        long bytes = 16L * 7 + 4L * Integer.highestOneBit(Math.max(1, keys.length * 4)) * 2 + 20L * keys.length;
+        for (String key : exact.keySet()) {
+            bytes += 32 + 16 + 40 + key.length();
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            bytes += 40 + keys[node].length();
+        }
+        return bytes;
+    }
+
+    public int find(String name) {
+        String query = name.trim();
+        Integer index = exact.get(query.toLowerCase(Locale.ROOT));
+        if (index == null) {
+            index = exact.get(fold(query));
+        }
+        return index != null ? index : -1;
+    }
+
+    public List<Integer> suggest(String name, int limit) {
+        return suggest(name, Math.max(1, Math.min(3, fold(name.trim()).length() / 3)), limit);
+    }
+
+    public List<Integer> suggest(String name, int maxDistance, int limit) {
+        String query = fold(name.trim());
+        List<int[]> candidates = new ArrayList<>();
+        if (nodeCount > 0) {
+            int[] stack = new int[nodeCount];
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                int distance = editDistance(query, keys[node]);
+                if (distance <= maxDistance) {
+                    candidates.add(new int[]{distance, keySystems[node]});
+                }
+                // Triangle inequality: only children whose edge distance is within maxDistance of ours can match.
+                for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                    if (Math.abs(parentDistance[child] - distance) <= maxDistance) {
+                        stack[top++] = child;
+                    }
+                }
+            }
+        }
+        candidates.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : galaxy.name(a[1]).compareTo(galaxy.name(b[1])));
+        List<Integer> suggestions = new ArrayList<>(Math.min(limit, candidates.size()));
+        for (int i = 0; i < candidates.size() && suggestions.size() < limit; i++) {
+            suggestions.add(candidates.get(i)[1]);
+        }
+        return suggestions;
+    }
+
+    private void insert(String key, int system) {
+        if (nodeCount == 0) {
+            keys[0] = key;
+            keySystems[0] = system;
+            nodeCount = 1;
+            return;
+        }
+        int node = 0;
+        while (true) {
+            int distance = editDistance(key, keys[node]);
+            if (distance == 0) {
+                return;
+            }
+            int child = firstChild[node];
+            while (child >= 0 && parentDistance[child] != distance) {
+                child = nextSibling[child];
+            }
+            if (child < 0) {
+                int added = nodeCount++;
+                keys[added] = key;
+                keySystems[added] = system;
+                parentDistance[added] = distance;
+                nextSibling[added] = firstChild[node];
+                firstChild[node] = added;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    static String fold(String name) {
+        String folded = name.toLowerCase(Locale.ROOT);
+        if (folded.startsWith(NAME_PREFIX)) {
+            folded = folded.substring(NAME_PREFIX.length());
+        }
+        return folded.replace('_', ' ');
+    }
+
+    static int editDistance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,87 @@
+package monster.giz;
+
+import java.util.Arrays;
+
+public class NavigationEngine {
+
+    public static final int UNREACHABLE = -1;
+
+    private final int source;
+    private final int[] hops;
+    private final int[] parent;
+    private final int[] visitOrder;
+    private final int reachableCount;
+
+    public NavigationEngine(Galaxy galaxy, int source) {
+        this.source = source;
+        this.hops = new int[galaxy.size()];
+        this.parent = new int[galaxy.size()];
+        this.visitOrder = new int[galaxy.size()];
+        Arrays.fill(hops, UNREACHABLE);
+        Arrays.fill(parent, -1);
+
+        int head = 0;
+        int tail = 0;
+        visitOrder[tail++] = source;
+        hops[source] = 0;
+        while (head < tail) {
+            int current = visitOrder[head++];
+            int nextHops = hops[current] + 1;
+            for (int lane = galaxy.laneStart(current); lane < galaxy.laneEnd(current); lane++) {
+                int neighbor = galaxy.laneTarget(lane);
+                if (hops[neighbor] == UNREACHABLE) {
+                    hops[neighbor] = nextHops;
+                    parent[neighbor] = current;
+                    visitOrder[tail++] = neighbor;
+                }
+            }
+        }
+        this.reachableCount = tail;
+    }
+
+    public int source() {
+        return source;
+    }
+
+    public int hops(int target) {
+        return hops[target];
+    }
+
+    public boolean isReachable(int target) {
+        return hops[target] != UNREACHABLE;
+    }
+
+    public int parent(int target) {
+        return parent[target];
+    }
+
+    public int reachableCount() {
+        return reachableCount;
+    }
+
+    public int[] route(int target) {
+        if (!isReachable(target)) {
+            return new int[0];
+        }
+        int[] route = new int[hops[target] + 1];
+        for (int step = target, i = route.length - 1; i >= 0; step = parent[step], i--) {
+            route[i] = step;
+        }
+        return route;
+    }
+
+    public int[] withinJumps(int maxJumps) {
+        // Systems are visited in non-decreasing hop order, so the answer is a prefix of the visit order.
+        int low = 0;
+        int high = reachableCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (hops[visitOrder[mid]] <= maxJumps) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return Arrays.copyOf(visitOrder, low);
+    }
+}
@@ -0,0 +1,200 @@
+package monster.giz;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+
+public class ParallelGalacticObjectParser {
+
+    public static final int MIN_CHUNK_BYTES = 256 * 1024;
+    public static final int MIN_PARALLEL_BYTES = 2 * MIN_CHUNK_BYTES;
+    public static final int CHUNKS_PER_THREAD = 4;
+
+    private static final byte[] GALACTIC_OBJECT = "galactic_object".getBytes(StandardCharsets.US_ASCII);
+
+    private static final boolean[] STRUCTURAL = new boolean[256];
+
+    static {
+        STRUCTURAL['{'] = true;
+        STRUCTURAL['}'] = true;
+        STRUCTURAL['"'] = true;
+        STRUCTURAL['#'] = true;
+    }
+
+    private static ForkJoinPool pool;
+    private static final Set<Thread> workers = ConcurrentHashMap.newKeySet();
+
+    public static Galaxy parse(ByteBuffer block) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (threads < 2) {
+            return new GalacticObjectParser(block).parse();
+        }
+        return parse(block, pool(threads));
+    }
+
+    private static synchronized ForkJoinPool pool(int threads) {
+        if (pool == null) {
+            // Workers are recorded so the profiler can count what they allocate on behalf of the calling stage.
+            pool = new ForkJoinPool(threads, forkJoinPool -> {
+                ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                workers.add(worker);
+                return worker;
+            }, null, false);
+        }
+        return pool;
+    }
+
+    public static long[] workerThreadIds() {
+        workers.removeIf(worker -> worker.getState() == Thread.State.TERMINATED);
+        return workers.stream().mapToLong(Thread::getId).toArray();
+    }
+
+    public static Galaxy parse(ByteBuffer block, ForkJoinPool pool) {
+        int bodyStart = bodyStart(block);
+        if (bodyStart < 0) {
+            return new Galaxy.Builder().build();
+        }
+        if (block.limit() - bodyStart < MIN_PARALLEL_BYTES) {
+            return new GalacticObjectParser(block).parse();
+        }
+        int[] boundaries = chunkBoundaries(block, bodyStart, pool.getParallelism() * CHUNKS_PER_THREAD);
+        if (boundaries.length <= 2) {
+            return new GalacticObjectParser(block).parse();
+        }
+
+        ChunkTask[] tasks = new ChunkTask[boundaries.length - 1];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new ChunkTask(block.duplicate().position(boundaries[i]).limit(boundaries[i + 1]));
+        }
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(tasks);
+                return null;
+            }
+        });
+
+        // Merging in chunk order gives the same builder contents, and so the same galaxy, as a sequential parse.
+        Galaxy.Builder builder = new Galaxy.Builder();
+        for (ChunkTask task : tasks) {
+            builder.addAll(task.join());
+        }
+        for (ChunkTask task : tasks) {
+            for (int id : task.invalidSystems) {
+                System.out.println("Could not load system data: " + id);
+            }
+        }
+        return builder.build();
+    }
+
+    private static int bodyStart(ByteBuffer block) {
+        ClausewitzTokenizer tokenizer = new ClausewitzTokenizer(block.duplicate());
+        int type = tokenizer.next();
+        if (type == ClausewitzTokenizer.SCALAR && tokenizer.tokenEquals(GALACTIC_OBJECT)) {
+            if (!tokenizer.consumeEquals() || tokenizer.next() != ClausewitzTokenizer.OPEN) {
+                return -1;
+            }
+            return tokenizer.position();
+        }
+        return type == ClausewitzTokenizer.OPEN ? tokenizer.position() : block.position();
+    }
+
+    static int[] chunkBoundaries(ByteBuffer block, int bodyStart, int maxChunks) {
+        int limit = block.limit();
+        int target = Math.max(MIN_CHUNK_BYTES, (limit - bodyStart) / Math.max(1, maxChunks));
+        List<Integer> boundaries = new ArrayList<>();
+        boundaries.add(bodyStart);
+
+        // A plain brace scan over bulk-copied windows is much cheaper than tokenizing; it only has to respect quotes and comments.
+        byte[] window = new byte[1 << 16];
+        int depth = 0;
+        boolean inQuote = false;
+        boolean inComment = false;
+        int bodyEnd = limit;
+        int carry = 0;
+        scan:
+        for (int windowStart = bodyStart; windowStart < limit; windowStart += window.length) {
+            int windowLength = Math.min(window.length, limit - windowStart);
+            block.get(windowStart, window, 0, windowLength);
+            int i = carry;
+            carry = 0;
+            while (i < windowLength) {
+                if (inComment) {
+                    while (i < windowLength && window[i] != '\n') {
+                        i++;
+                    }
+                    inComment = i == windowLength;
+                    continue;
+                }
+                if (inQuote) {
+                    while (i < windowLength && window[i] != '"') {
+                        i += window[i] == '\\' ? 2 : 1;
+                    }
+                    if (i > windowLength) {
+                        // The escaped byte is the first one of the next window.
+                        carry = i - windowLength;
+                    } else if (i < windowLength) {
+                        inQuote = false;
+                        i++;
+                    }
+                    continue;
+                }
+
+                while (i < windowLength && !STRUCTURAL[window[i] & 0xFF]) {
+                    i++;
+                }
+                if (i == windowLength) {
+                    break;
+                }
+                byte b = window[i++];
+                if (b == '{') {
+                    depth++;
+                } else if (b == '}') {
+                    if (depth == 0) {
+                        bodyEnd = windowStart + i - 1;
+                        break scan;
+                    }
+                    if (--depth == 0 && windowStart + i - boundaries.get(boundaries.size() - 1) >= target) {
+                        boundaries.add(windowStart + i);
+                    }
+                } else if (b == '"') {
+                    inQuote = true;
+                } else {
+                    inComment = true;
+                }
+            }
+        }
+
+        if (boundaries.get(boundaries.size() - 1) >= bodyEnd) {
+            boundaries.remove(boundaries.size() - 1);
+        }
+        boundaries.add(bodyEnd);
+        return boundaries.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static class ChunkTask extends RecursiveTask<Galaxy.Builder> {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer chunk;
+        private int[] invalidSystems = new int[0];
+
+        ChunkTask(ByteBuffer chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected Galaxy.Builder compute() {
+            Galaxy.Builder builder = new Galaxy.Builder();
+            GalacticObjectParser parser = new GalacticObjectParser(chunk);
+            parser.parseChunk(builder);
+            invalidSystems = parser.invalidSystems();
+            return builder;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package monster.giz;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class QueryServer {
+
+    public static final int DEFAULT_PORT = 8765;
+    public static final int MAP_TILES = 2;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final GalaxyCache cache;
+    private final Path saveGamesPath;
+    private Galaxy renderedGalaxy;
+    private GalaxyRenderer renderer;
+
+    public QueryServer(int port, long heapBudgetBytes, Path saveGamesPath) throws IOException {
+        this.cache = new GalaxyCache(heapBudgetBytes);
+        this.saveGamesPath = saveGamesPath;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        // Handlers are short and CPU-bound once a galaxy is resident, so a small fixed pool is enough.
+        this.executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        server.setExecutor(executor);
+        server.createContext("/galaxy", exchange -> handle(exchange, this::galaxy));
+        server.createContext("/route", exchange -> handle(exchange, this::route));
+        server.createContext("/nearby", exchange -> handle(exchange, this::nearby));
+        server.createContext("/flags", exchange -> handle(exchange, this::flags));
+        server.createContext("/map", exchange -> handle(exchange, this::map));
+        server.createContext("/cache", exchange -> handle(exchange, query -> cacheStatus()));
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("Serving queries on http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+                + " (galaxy cache budget " + cache.budgetBytes() / (1024 * 1024) + " MB)");
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    private Map<String, Object> galaxy(Map<String, String> query) throws IOException {
+        Galaxy galaxy = galaxyFor(query);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("save", query.get("save"));
+        response.put("systems", galaxy.size());
+        response.put("hyperlanes", GalaxyTopology.hyperlaneCount(galaxy));
+        response.put("diameter", galaxy.diameter());
+        response.put("precursor", StellarisSaveAnalyzer.findMostCommonPrecursor(galaxy));
+        return response;
+    }
+
+    private Map<String, Object> route(Map<String, String> query) throws IOException {
+        Galaxy galaxy = galaxyFor(query);
+        int from = systemFor(galaxy, query, "from");
+        int to = systemFor(galaxy, query, "to");
+        int[] route;
+        if ("distance".equals(query.get("by"))) {
+            route = new Router(galaxy).route(from, to, CostModel.distance()).systems;
+        } else {
+            route = new NavigationEngine(galaxy, from).route(to);
+        }
+
+        List<String> systems = new ArrayList<>(route.length);
+        for (int index : route) {
+            systems.add(galaxy.name(index));
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("from", galaxy.name(from));
+        response.put("to", galaxy.name(to));
+        response.put("reachable", route.length > 0);
+        response.put("jumps", route.length > 0 ? route.length - 1 : null);
+        response.put("length", route.length > 0 ? Router.length(galaxy, route) : null);
+        response.put("route", systems);
+        return response;
+    }
+
+    private Map<String, Object> nearby(Map<String, String> query) throws IOException {
+        Galaxy galaxy = galaxyFor(query);
+        int center = systemFor(galaxy, query, "system");
+        double radius = doubleParameter(query, "radius");
+        int[] found = galaxy.spatialIndex().withinRadius(galaxy.x(center), galaxy.y(center), radius);
+
+        List<Map<String, Object>> systems = new ArrayList<>(found.length);
+        for (int index : found) {
+            if (index == center) {
+                continue;
+            }
+            Map<String, Object> system = new LinkedHashMap<>();
+            system.put("name", galaxy.name(index));
+            system.put("id", galaxy.id(index));
+            system.put("distance", galaxy.distance(center, index));
+            systems.add(system);
+        }
+        systems.sort((a, b) -> Double.compare((Double) a.get("distance"), (Double) b.get("distance")));
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("system", galaxy.name(center));
+        response.put("radius", radius);
+        response.put("systems", systems);
+        return response;
+    }
+
+    private Map<String, Object> flags(Map<String, String> query) throws IOException {
+        Galaxy galaxy = galaxyFor(query);
+        WatchlistMatcher matcher = new WatchlistMatcher(List.of(parameter(query, "flag")));
+        WatchlistMatcher excluded = new WatchlistMatcher(query.containsKey("exclude") ? List.of(query.get("exclude")) : List.of());
+        boolean[] matching = new boolean[galaxy.flagCount()];
+        boolean[] excluding = new boolean[galaxy.flagCount()];
+        List<String> matchedNames = new ArrayList<>();
+        for (int flagId = 0; flagId < matching.length; flagId++) {
+            matching[flagId] = matcher.matches(galaxy.flagName(flagId));
+            excluding[flagId] = excluded.matches(galaxy.flagName(flagId));
+            if (matching[flagId]) {
+                matchedNames.add(galaxy.flagName(flagId));
+            }
+        }
+
+        BitSet found = galaxy.flagIndex().systemsWithAny(flagId -> matching[flagId]);
+        found.andNot(galaxy.flagIndex().systemsWithAny(flagId -> excluding[flagId]));
+        List<Map<String, Object>> systems = new ArrayList<>();
+        for (int index = found.nextSetBit(0); index >= 0; index = found.nextSetBit(index + 1)) {
+            List<String> flags = new ArrayList<>();
+            for (int k = galaxy.flagStart(index); k < galaxy.flagEnd(index); k++) {
+                if (matching[galaxy.flagAt(k)]) {
+                    flags.add(galaxy.flagName(galaxy.flagAt(k)));
+                }
+            }
+            Map<String, Object> system = new LinkedHashMap<>();
+            system.put("name", galaxy.name(index));
+            system.put("id", galaxy.id(index));
+            system.put("flags", flags);
+            systems.add(system);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("flag", query.get("flag"));
+        response.put("exclude", query.get("exclude"));
+        response.put("matched_flags", matchedNames);
+        response.put("count", systems.size());
+        response.put("systems", systems);
+        return response;
+    }
+
+    private BufferedImage map(Map<String, String> query) throws IOException {
+        Galaxy galaxy = galaxyFor(query);
+        GalaxyRenderer mapRenderer = renderer(galaxy);
+        int row = query.containsKey("row") ? (int) doubleParameter(query, "row") : 0;
+        int column = query.containsKey("column") ? (int) doubleParameter(query, "column") : 0;
+        if (row < 0 || column < 0 || row >= mapRenderer.tilesPerSide() || column >= mapRenderer.tilesPerSide()) {
+            throw new QueryException(400, "tile out of range: " + row + "," + column);
+        }
+
+        // Only the route overlay is drawn per request; the tile underneath comes from the renderer's cache.
+        List<int[]> routes = new ArrayList<>();
+        if (query.containsKey("from") && query.containsKey("to")) {
+            routes.add(new NavigationEngine(galaxy, systemFor(galaxy, query, "from")).route(systemFor(galaxy, query, "to")));
+        }
+        return mapRenderer.render(row, column, routes);
+    }
+
+    private synchronized GalaxyRenderer renderer(Galaxy galaxy) {
+        // Only the most recently mapped galaxy keeps its cached tiles, so evicted galaxies are not pinned by a renderer.
+        if (renderedGalaxy == galaxy) {
+            return renderer;
+        }
+        List<StellarisSaveAnalyzer.SystemData> specialSystems = new ArrayList<>();
+        Map<StellarisSaveAnalyzer.SystemData, List<String>> specialFlagSystems = new LinkedHashMap<>();
+        StellarisSaveAnalyzer.locateSpecialSystems(galaxy, specialSystems, specialFlagSystems);
+        specialSystems.addAll(specialFlagSystems.keySet());
+        int[] pointsOfInterest = specialSystems.stream().mapToInt(system -> galaxy.indexOf(system.id)).toArray();
+        renderer = new GalaxyRenderer(galaxy, MAP_TILES, GalaxyRenderer.DEFAULT_TILE_SIZE, pointsOfInterest, true);
+        renderedGalaxy = galaxy;
+        return renderer;
+    }
+
+    private Map<String, Object> cacheStatus() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("budget_bytes", cache.budgetBytes());
+        response.put("resident_bytes", cache.residentBytes());
+        response.put("galaxies", cache.describe());
+        return response;
+    }
+
+    private Galaxy galaxyFor(Map<String, String> query) throws IOException {
+        String save = parameter(query, "save");
+        Path path = Paths.get(save);
+        if (!path.isAbsolute() && saveGamesPath != null && Files.isDirectory(saveGamesPath.resolve(save))) {
+            path = saveGamesPath.resolve(save);
+        }
+        if (Files.isDirectory(path)) {
+            path = path.resolve(StellarisSaveAnalyzer.IRONMAN_SAVE);
+        }
+        if (!Files.exists(path)) {
+            throw new QueryException(404, "save not found: " + save);
+        }
+        return cache.get(path);
+    }
+
+    private static int systemFor(Galaxy galaxy, Map<String, String> query, String name) {
+        String systemName = parameter(query, name);
+        int index = galaxy.nameIndex().find(systemName);
+        if (index < 0) {
+            List<String> suggestions = new ArrayList<>();
+            for (int suggestion : galaxy.nameIndex().suggest(systemName, 5)) {
+                suggestions.add(galaxy.name(suggestion));
+            }
+            throw new QueryException(404, "system not found: " + systemName
+                    + (suggestions.isEmpty() ? "" : " (did you mean: " + String.join(", ", suggestions) + ")"));
+        }
+        return index;
+    }
+
+    private static String parameter(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new QueryException(400, "missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static double doubleParameter(Map<String, String> query, String name) {
+        try {
+            return Double.parseDouble(parameter(query, name));
+        } catch (NumberFormatException e) {
+            throw new QueryException(400, "not a number: " + name);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try (exchange) {
+            int status = 200;
+            Object body;
+            try {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    throw new QueryException(405, "only GET is supported");
+                }
+                body = handler.handle(parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (QueryException e) {
+                status = e.status;
+                body = Map.of("error", e.getMessage());
+            } catch (Exception e) {
+                status = 500;
+                body = Map.of("error", e.toString());
+            }
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try {
+                encode(exchange, body, buffer);
+            } catch (IOException | RuntimeException e) {
+                // Encoding failed after the handler succeeded; the client still gets an answer instead of hanging.
+                status = 500;
+                buffer.reset();
+                encode(exchange, Map.of("error", e.toString()), buffer);
+            }
+            exchange.sendResponseHeaders(status, buffer.size());
+            try (OutputStream out = exchange.getResponseBody()) {
+                buffer.writeTo(out);
+            }
+        }
+    }
+
+    private static void encode(HttpExchange exchange, Object body, ByteArrayOutputStream buffer) throws IOException {
+        if (body instanceof BufferedImage image) {
+            ImageIO.write(image, "png", buffer);
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+        } else {
+            try (Writer writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8)) {
+                ReportWriter.writeJson(writer, body);
+                writer.write("\n");
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        }
+    }
+
+    private interface Handler {
+        Object handle(Map<String, String> query) throws IOException;
+    }
+
+    private static class QueryException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        QueryException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
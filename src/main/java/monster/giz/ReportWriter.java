@@ -0,0 +1,249 @@
+package monster.giz;
+
+import monster.giz.StellarisSaveAnalyzer.SystemData;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public abstract class ReportWriter implements Closeable {
+
+    public static final List<String> FORMATS = List.of("text", "json", "csv");
+
+    protected final Writer out;
+
+    protected ReportWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    public static ReportWriter create(String format, OutputStream out) {
+        return switch (format) {
+            case "json" -> new JsonLinesReportWriter(out);
+            case "csv" -> new CsvReportWriter(out);
+            default -> throw new IllegalArgumentException("Unknown report format: " + format + " (expected one of " + FORMATS + ")");
+        };
+    }
+
+    public void overview(String save, int systemCount, double diameter, String precursor) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("save", save);
+        fields.put("systems", systemCount);
+        fields.put("diameter", diameter);
+        fields.put("precursor", precursor);
+        record("overview", fields);
+    }
+
+    public void specialSystem(String save, SystemData system, List<String> matchedFlags) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("save", save);
+        fields.put("system", system.name);
+        fields.put("system_id", system.id);
+        fields.put("x", system.x);
+        fields.put("y", system.y);
+        fields.put("flags", matchedFlags);
+        record("special_system", fields);
+    }
+
+    public void pointOfInterest(String save, SystemData home, SystemData target, double distance,
+                                double percentOfGalaxy, String direction, double angle) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("save", save);
+        fields.put("system", home.name);
+        fields.put("target", target.name);
+        fields.put("target_id", target.id);
+        fields.put("distance", distance);
+        fields.put("percent_of_galaxy", percentOfGalaxy);
+        fields.put("direction", direction);
+        fields.put("angle", angle);
+        record("point_of_interest", fields);
+    }
+
+    public void route(String save, SystemData home, SystemData target, List<String> systems, double length) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("save", save);
+        fields.put("system", home.name);
+        fields.put("target", target.name);
+        fields.put("target_id", target.id);
+        fields.put("jumps", systems.isEmpty() ? null : systems.size() - 1);
+        fields.put("length", systems.isEmpty() ? null : length);
+        fields.put("route", systems);
+        record("route", fields);
+    }
+
+    public void error(String save, String message) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("save", save);
+        fields.put("error", message);
+        record("error", fields);
+    }
+
+    private void record(String record, Map<String, Object> fields) {
+        // Each record is flushed as soon as it is written so downstream tools see results while a run is in progress.
+        try {
+            writeRecord(record, fields);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected abstract void writeRecord(String record, Map<String, Object> fields) throws IOException;
+
+    protected static String formatNumber(Object value) {
+        if (value instanceof Double number) {
+            if (number.isNaN() || number.isInfinite()) {
+                return null;
+            }
+            return number == Math.rint(number) && Math.abs(number) < 1e15
+                    ? Long.toString(number.longValue())
+                    : Double.toString(Math.round(number * 1000) / 1000.0);
+        }
+        return value.toString();
+    }
+
+    static void writeJson(Writer out, Object value) throws IOException {
+        if (value == null) {
+            out.write("null");
+        } else if (value instanceof Number) {
+            String number = formatNumber(value);
+            out.write(number != null ? number : "null");
+        } else if (value instanceof Boolean) {
+            out.write(value.toString());
+        } else if (value instanceof Map<?, ?> map) {
+            out.write("{");
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!first) {
+                    out.write(",");
+                }
+                first = false;
+                writeJsonString(out, entry.getKey().toString());
+                out.write(":");
+                writeJson(out, entry.getValue());
+            }
+            out.write("}");
+        } else if (value instanceof List<?> list) {
+            out.write("[");
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) {
+                    out.write(",");
+                }
+                writeJson(out, list.get(i));
+            }
+            out.write("]");
+        } else {
+            writeJsonString(out, value.toString());
+        }
+    }
+
+    private static void writeJsonString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+
+    public static class JsonLinesReportWriter extends ReportWriter {
+
+        public JsonLinesReportWriter(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        protected void writeRecord(String record, Map<String, Object> fields) throws IOException {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("record", record);
+            line.putAll(fields);
+            writeJson(out, line);
+            out.write("\n");
+        }
+    }
+
+    public static class CsvReportWriter extends ReportWriter {
+
+        public static final List<String> COLUMNS = Arrays.asList(
+                "record", "save", "system", "system_id", "target", "target_id", "x", "y", "systems", "diameter",
+                "precursor", "distance", "percent_of_galaxy", "direction", "angle", "jumps", "length", "flags", "route", "error");
+
+        private boolean headerWritten;
+
+        public CsvReportWriter(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        protected void writeRecord(String record, Map<String, Object> fields) throws IOException {
+            if (!headerWritten) {
+                out.write(String.join(",", COLUMNS));
+                out.write("\n");
+                headerWritten = true;
+            }
+            out.write(record);
+            for (int column = 1; column < COLUMNS.size(); column++) {
+                out.write(",");
+                writeValue(fields.get(COLUMNS.get(column)));
+            }
+            out.write("\n");
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            String text;
+            if (value instanceof Number) {
+                text = formatNumber(value);
+            } else if (value instanceof List<?> list) {
+                StringBuilder joined = new StringBuilder();
+                for (Object element : list) {
+                    if (joined.length() > 0) {
+                        joined.append(';');
+                    }
+                    joined.append(element);
+                }
+                text = joined.toString();
+            } else {
+                text = value.toString();
+            }
+            if (text == null) {
+                return;
+            }
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(text.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(text);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package monster.giz;
+
+import java.util.Arrays;
+
+public class Router {
+
+    private final Galaxy galaxy;
+    private final double[] cost;
+    private final int[] parent;
+    private final int[] seenStamp;
+    private final int[] closedStamp;
+    private int stamp;
+
+    private final MinHeap heap = new MinHeap();
+
+    public Router(Galaxy galaxy) {
+        this.galaxy = galaxy;
+        this.cost = new double[galaxy.size()];
+        this.parent = new int[galaxy.size()];
+        this.seenStamp = new int[galaxy.size()];
+        this.closedStamp = new int[galaxy.size()];
+    }
+
+    public Route route(int from, int to, CostModel costModel) {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(seenStamp, 0);
+            Arrays.fill(closedStamp, 0);
+            stamp = 1;
+        }
+        heap.clear();
+
+        cost[from] = 0;
+        parent[from] = from;
+        seenStamp[from] = stamp;
+        heap.push(from, costModel.estimate(galaxy, from, to));
+
+        while (!heap.isEmpty()) {
+            int current = heap.pop();
+            if (closedStamp[current] == stamp) {
+                continue;
+            }
+            if (current == to) {
+                return buildRoute(from, to);
+            }
+            closedStamp[current] = stamp;
+
+            for (int lane = galaxy.laneStart(current); lane < galaxy.laneEnd(current); lane++) {
+                int neighbor = galaxy.laneTarget(lane);
+                if (closedStamp[neighbor] == stamp) {
+                    continue;
+                }
+                double candidate = cost[current] + costModel.laneCost(galaxy, current, neighbor);
+                if (seenStamp[neighbor] != stamp || candidate < cost[neighbor]) {
+                    seenStamp[neighbor] = stamp;
+                    cost[neighbor] = candidate;
+                    parent[neighbor] = current;
+                    heap.push(neighbor, candidate + costModel.estimate(galaxy, neighbor, to));
+                }
+            }
+        }
+        return Route.NONE;
+    }
+
+    public static double length(Galaxy galaxy, int[] systems) {
+        double length = 0;
+        for (int i = 1; i < systems.length; i++) {
+            length += galaxy.distance(systems[i - 1], systems[i]);
+        }
+        return length;
+    }
+
+    private Route buildRoute(int from, int to) {
+        int length = 1;
+        for (int step = to; step != from; step = parent[step]) {
+            length++;
+        }
+        int[] systems = new int[length];
+        for (int step = to, i = length - 1; i >= 0; step = parent[step], i--) {
+            systems[i] = step;
+        }
+        return new Route(systems, cost[to]);
+    }
+
+    public static class Route {
+        public static final Route NONE = new Route(new int[0], Double.POSITIVE_INFINITY);
+
+        public final int[] systems;
+        public final double cost;
+
+        Route(int[] systems, double cost) {
+            this.systems = systems;
+            this.cost = cost;
+        }
+
+        public boolean isEmpty() {
+            return systems.length == 0;
+        }
+
+        public double length(Galaxy galaxy) {
+            return Router.length(galaxy, systems);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package monster.giz;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipException;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+public class SaveWatcher {
+
+    public static final long DEBOUNCE_MILLIS = 750;
+    public static final long POLL_MILLIS = 250;
+
+    private final Path saveGamesPath;
+    private final Path campaignFolder;
+    private final Map<WatchKey, Path> watchedFolders = new HashMap<>();
+    private final Map<Path, PendingSave> pendingSaves = new HashMap<>();
+
+    public SaveWatcher(Path saveGamesPath, Path campaignFolder) {
+        this.saveGamesPath = saveGamesPath;
+        this.campaignFolder = campaignFolder;
+    }
+
+    public void watch() throws IOException, InterruptedException {
+        try (WatchService watchService = saveGamesPath.getFileSystem().newWatchService()) {
+            watchedFolders.put(saveGamesPath.register(watchService, ENTRY_CREATE), saveGamesPath);
+            try (DirectoryStream<Path> folders = Files.newDirectoryStream(saveGamesPath, Files::isDirectory)) {
+                for (Path folder : folders) {
+                    register(watchService, folder);
+                }
+            }
+
+            System.out.println("\nWatching " + saveGamesPath + " for new saves (Ctrl+C to stop)...");
+            while (true) {
+                WatchKey key = watchService.poll(pendingSaves.isEmpty() ? 1000 : POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    handleEvents(watchService, key);
+                }
+                processSettledSaves();
+            }
+        }
+    }
+
+    private void register(WatchService watchService, Path folder) throws IOException {
+        watchedFolders.put(folder.register(watchService, ENTRY_CREATE, ENTRY_MODIFY), folder);
+    }
+
+    private void handleEvents(WatchService watchService, WatchKey key) throws IOException {
+        Path folder = watchedFolders.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || folder == null) {
+                continue;
+            }
+            Path changed = folder.resolve((Path) event.context());
+            if (folder.equals(saveGamesPath)) {
+                if (Files.isDirectory(changed)) {
+                    register(watchService, changed);
+                    markPending(changed.resolve(StellarisSaveAnalyzer.IRONMAN_SAVE));
+                }
+            } else if (changed.getFileName().toString().equals(StellarisSaveAnalyzer.IRONMAN_SAVE)) {
+                markPending(changed);
+            }
+        }
+        if (!key.reset()) {
+            watchedFolders.remove(key);
+        }
+    }
+
+    private void markPending(Path savePath) {
+        pendingSaves.computeIfAbsent(savePath, path -> new PendingSave()).lastEventMillis = System.currentTimeMillis();
+    }
+
+    private void processSettledSaves() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, PendingSave>> iterator = pendingSaves.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, PendingSave> entry = iterator.next();
+            Path savePath = entry.getKey();
+            PendingSave pending = entry.getValue();
+            if (now - pending.lastEventMillis < DEBOUNCE_MILLIS) {
+                continue;
+            }
+            if (!Files.exists(savePath)) {
+                // Nothing to analyze; the folder's watch will mark it pending again if the save shows up later.
+                iterator.remove();
+                continue;
+            }
+
+            // The game may still be writing without emitting events; wait until size and mtime hold still.
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(savePath, BasicFileAttributes.class);
+                long modified = attributes.lastModifiedTime().toMillis();
+                if (attributes.size() != pending.size || modified != pending.modified) {
+                    pending.size = attributes.size();
+                    pending.modified = modified;
+                    pending.failed = false;
+                    pending.lastEventMillis = now - DEBOUNCE_MILLIS + POLL_MILLIS;
+                    continue;
+                }
+            } catch (IOException e) {
+                continue;
+            }
+
+            try {
+                analyze(savePath);
+                iterator.remove();
+            } catch (ZipException e) {
+                // Half-written archive; try again on the next settled check.
+                pending.lastEventMillis = now;
+            } catch (IOException e) {
+                System.out.println("Could not analyze " + savePath + ": " + e.getMessage());
+                iterator.remove();
+            } catch (RuntimeException e) {
+                // A truncated gamestate fails inside the parser; retry once, and give up only if the file has not changed since.
+                if (pending.failed) {
+                    System.out.println("Could not analyze " + savePath + ": " + e);
+                    iterator.remove();
+                } else {
+                    pending.failed = true;
+                    pending.lastEventMillis = now;
+                }
+            }
+        }
+    }
+
+    private void analyze(Path savePath) throws IOException {
+        Path folder = savePath.getParent();
+        if (!folder.equals(campaignFolder)) {
+            System.out.println("\n*** " + folder.getFileName() + " was saved ***");
+            BatchAnalyzer.analyze(folder).print();
+            return;
+        }
+
+        long start = System.nanoTime();
+        Galaxy previous = StellarisSaveAnalyzer.currentGalaxy;
+        Galaxy galaxy = StellarisSaveAnalyzer.loadGalaxyCached(savePath);
+        if (galaxy == null) {
+            System.out.println("No galactic_object block found in " + savePath);
+            return;
+        }
+        boolean geometryUnchanged = galaxy.reuseGeometry(previous);
+        boolean topologyUnchanged = galaxy.sameHyperlanes(previous);
+
+        System.out.println("\n*** " + folder.getFileName() + " was saved ***");
+        System.out.println("Coordinates " + (geometryUnchanged ? "unchanged, reusing diameter and spatial index" : "changed, rebuilding"));
+        System.out.println("Hyperlanes " + (topologyUnchanged ? "unchanged, reusing routes" : "changed, rerouting"));
+        if (previous != null) {
+            StellarisSaveAnalyzer.outputGalaxyDiff(previous, galaxy);
+        }
+        StellarisSaveAnalyzer.refreshReport(galaxy, topologyUnchanged);
+        System.out.printf("Report updated in %d ms%n", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static class PendingSave {
+        long lastEventMillis;
+        long size = -1;
+        long modified = -1;
+        boolean failed;
+    }
+}
@@ -0,0 +1,272 @@
+package monster.giz;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+public class SpatialIndex {
+
+    private final Galaxy galaxy;
+    private final int[] tree;
+
+    public SpatialIndex(Galaxy galaxy) {
+        this.galaxy = galaxy;
+        this.tree = new int[galaxy.size()];
+        for (int i = 0; i < tree.length; i++) {
+            tree[i] = i;
+        }
+        build(0, tree.length - 1, 0);
+    }
+
+    SpatialIndex(Galaxy galaxy, SpatialIndex sameCoordinates) {
+        this.galaxy = galaxy;
+        this.tree = sameCoordinates.tree;
+    }
+
+    public long estimatedBytes() {
+        return 16 + 4L * tree.length;
+    }
+
+    public void forEachWithinRadius(double x, double y, double radius, IntConsumer action) {
+        withinRadius(0, tree.length - 1, 0, x, y, radius, radius * radius, action);
+    }
+
+    public int[] withinRadius(double x, double y, double radius) {
+        IntCollector collector = new IntCollector();
+        forEachWithinRadius(x, y, radius, collector);
+        return collector.toArray();
+    }
+
+    public void forEachWithinBox(double minX, double minY, double maxX, double maxY, IntConsumer action) {
+        withinBox(0, tree.length - 1, 0, minX, minY, maxX, maxY, action);
+    }
+
+    public int[] withinBox(double minX, double minY, double maxX, double maxY) {
+        IntCollector collector = new IntCollector();
+        forEachWithinBox(minX, minY, maxX, maxY, collector);
+        return collector.toArray();
+    }
+
+    public int[] nearest(double x, double y, int k) {
+        return nearest(x, y, k, index -> true);
+    }
+
+    public int[] nearest(double x, double y, int k, IntPredicate filter) {
+        if (k <= 0) {
+            return new int[0];
+        }
+        NearestHeap heap = new NearestHeap(k);
+        nearest(0, tree.length - 1, 0, x, y, filter, heap);
+        return heap.toSortedArray();
+    }
+
+    private void build(int low, int high, int depth) {
+        if (low >= high) {
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        select(low, high, mid, depth & 1);
+        build(low, mid - 1, depth + 1);
+        build(mid + 1, high, depth + 1);
+    }
+
+    private void select(int low, int high, int target, int axis) {
+        while (low < high) {
+            double pivot = coordinate(tree[(low + high) >>> 1], axis);
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (coordinate(tree[i], axis) < pivot) {
+                    i++;
+                }
+                while (coordinate(tree[j], axis) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = tree[i];
+                    tree[i++] = tree[j];
+                    tree[j--] = swap;
+                }
+            }
+            if (target <= j) {
+                high = j;
+            } else if (target >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void withinRadius(int low, int high, int depth, double x, double y, double radius,
+                              double radiusSquared, IntConsumer action) {
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int index = tree[mid];
+            double dx = galaxy.x(index) - x;
+            double dy = galaxy.y(index) - y;
+            if (dx * dx + dy * dy <= radiusSquared) {
+                action.accept(index);
+            }
+
+            double delta = (depth & 1) == 0 ? dx : dy;
+            if (delta >= -radius) {
+                if (delta <= radius) {
+                    withinRadius(mid + 1, high, depth + 1, x, y, radius, radiusSquared, action);
+                }
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+            depth++;
+        }
+    }
+
+    private void withinBox(int low, int high, int depth, double minX, double minY, double maxX, double maxY,
+                           IntConsumer action) {
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int index = tree[mid];
+            double px = galaxy.x(index);
+            double py = galaxy.y(index);
+            if (px >= minX && px <= maxX && py >= minY && py <= maxY) {
+                action.accept(index);
+            }
+
+            double split = (depth & 1) == 0 ? px : py;
+            double min = (depth & 1) == 0 ? minX : minY;
+            double max = (depth & 1) == 0 ? maxX : maxY;
+            boolean left = min <= split;
+            boolean right = max >= split;
+            if (left && right) {
+                withinBox(mid + 1, high, depth + 1, minX, minY, maxX, maxY, action);
+                high = mid - 1;
+            } else if (left) {
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+            depth++;
+        }
+    }
+
+    private void nearest(int low, int high, int depth, double x, double y, IntPredicate filter, NearestHeap heap) {
+        if (low > high) {
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        int index = tree[mid];
+        double dx = galaxy.x(index) - x;
+        double dy = galaxy.y(index) - y;
+        if (filter.test(index)) {
+            heap.offer(index, dx * dx + dy * dy);
+        }
+
+        double delta = (depth & 1) == 0 ? dx : dy;
+        boolean searchLeftFirst = delta >= 0;
+        if (searchLeftFirst) {
+            nearest(low, mid - 1, depth + 1, x, y, filter, heap);
+        } else {
+            nearest(mid + 1, high, depth + 1, x, y, filter, heap);
+        }
+        if (!heap.isFull() || delta * delta <= heap.worstDistanceSquared()) {
+            if (searchLeftFirst) {
+                nearest(mid + 1, high, depth + 1, x, y, filter, heap);
+            } else {
+                nearest(low, mid - 1, depth + 1, x, y, filter, heap);
+            }
+        }
+    }
+
+    private double coordinate(int index, int axis) {
+        return axis == 0 ? galaxy.x(index) : galaxy.y(index);
+    }
+
+    private static class IntCollector implements IntConsumer {
+        private int[] values = new int[16];
+        private int size;
+
+        @Override
+        public void accept(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static class NearestHeap {
+        private final int[] indexes;
+        private final double[] distances;
+        private int size;
+
+        NearestHeap(int capacity) {
+            this.indexes = new int[capacity];
+            this.distances = new double[capacity];
+        }
+
+        boolean isFull() {
+            return size == indexes.length;
+        }
+
+        double worstDistanceSquared() {
+            return distances[0];
+        }
+
+        void offer(int index, double distanceSquared) {
+            if (size < indexes.length) {
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (distances[parent] >= distanceSquared) {
+                        break;
+                    }
+                    indexes[i] = indexes[parent];
+                    distances[i] = distances[parent];
+                    i = parent;
+                }
+                indexes[i] = index;
+                distances[i] = distanceSquared;
+            } else if (distanceSquared < distances[0]) {
+                siftDown(index, distanceSquared);
+            }
+        }
+
+        private void siftDown(int index, double distanceSquared) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[child] <= distanceSquared) {
+                    break;
+                }
+                indexes[i] = indexes[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            indexes[i] = index;
+            distances[i] = distanceSquared;
+        }
+
+        int[] toSortedArray() {
+            int[] result = new int[size];
+            while (size > 0) {
+                int last = --size;
+                result[last] = indexes[0];
+                if (last > 0) {
+                    siftDown(indexes[last], distances[last]);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package monster.giz;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+public class StageProfiler {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final List<Stage> stages = new ArrayList<>();
+
+    public Stage start(String name) {
+        return start(name, null);
+    }
+
+    // For stages that hand work to other threads; whatever those threads allocate while the stage is open counts too.
+    public Stage start(String name, Supplier<long[]> helperThreads) {
+        Stage stage = new Stage(name, helperThreads);
+        stages.add(stage);
+        return stage;
+    }
+
+    public List<Stage> stages() {
+        return stages;
+    }
+
+    public void clear() {
+        stages.clear();
+    }
+
+    public void printSummary() {
+        System.out.println("\n=== Profile ===");
+        System.out.printf("%-24s %10s %12s %10s %12s%n", "Stage", "Wall ms", "Bytes", "Objects", "Allocated");
+        long totalNanos = 0;
+        long totalAllocated = 0;
+        for (Stage stage : stages) {
+            System.out.printf("%-24s %10.2f %12s %10s %12s%n", stage.name, stage.wallNanos / 1e6,
+                    stage.bytes > 0 ? formatBytes(stage.bytes) : "-",
+                    stage.objects > 0 ? String.valueOf(stage.objects) : "-",
+                    stage.allocatedBytes >= 0 ? formatBytes(stage.allocatedBytes) : "n/a");
+            totalNanos += stage.wallNanos;
+            totalAllocated += Math.max(0, stage.allocatedBytes);
+        }
+        System.out.printf("%-24s %10.2f %12s %10s %12s%n", "Total", totalNanos / 1e6, "", "", formatBytes(totalAllocated));
+        System.out.println("====================================");
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private static Map<Long, Long> threadAllocatedBytes(long[] threadIds) {
+        Map<Long, Long> allocated = new HashMap<>();
+        long[] bytes = THREADS.getThreadAllocatedBytes(threadIds);
+        for (int i = 0; i < threadIds.length; i++) {
+            if (bytes[i] >= 0) {
+                allocated.put(threadIds[i], bytes[i]);
+            }
+        }
+        return allocated;
+    }
+
+    public static class Stage implements AutoCloseable {
+        private final String name;
+        private final StageEvent event = new StageEvent();
+        private final long startNanos;
+        private final long startAllocated;
+        private final Supplier<long[]> helperThreads;
+        private final Map<Long, Long> helperStartAllocated;
+        private long wallNanos;
+        private long allocatedBytes = -1;
+        private long bytes;
+        private long objects;
+        private boolean closed;
+
+        Stage(String name, Supplier<long[]> helperThreads) {
+            this.name = name;
+            this.helperThreads = THREADS != null ? helperThreads : null;
+            event.begin();
+            this.helperStartAllocated = this.helperThreads != null ? threadAllocatedBytes(this.helperThreads.get()) : null;
+            this.startAllocated = currentThreadAllocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long wallNanos() {
+            return wallNanos;
+        }
+
+        public long allocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public void addBytes(long count) {
+            bytes += count;
+        }
+
+        public void addObjects(long count) {
+            objects += count;
+        }
+
+        public InputStream countBytes(InputStream in) {
+            return new FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        bytes++;
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int read = super.read(buffer, offset, length);
+                    if (read > 0) {
+                        bytes += read;
+                    }
+                    return read;
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            wallNanos = System.nanoTime() - startNanos;
+            long endAllocated = currentThreadAllocatedBytes();
+            if (startAllocated >= 0 && endAllocated >= 0) {
+                allocatedBytes = endAllocated - startAllocated;
+            }
+            if (helperThreads != null && allocatedBytes >= 0) {
+                // Helpers started during the stage count from zero; one that died before close() is lost.
+                for (Map.Entry<Long, Long> helper : threadAllocatedBytes(helperThreads.get()).entrySet()) {
+                    allocatedBytes += helper.getValue() - helperStartAllocated.getOrDefault(helper.getKey(), 0L);
+                }
+            }
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = name;
+                event.bytes = bytes;
+                event.objects = objects;
+                event.allocatedBytes = allocatedBytes;
+                event.commit();
+            }
+        }
+    }
+
+    @Name("monster.giz.Stage")
+    @Label("Analysis Stage")
+    @Category("Stellaris Peeker")
+    @Description("One stage of a save analysis run")
+    static class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Objects")
+        long objects;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+    }
+}
@@ -1,52 +1,192 @@
 package monster.giz;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
-import java.util.regex.*;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 public class StellarisSaveAnalyzer {
 
     public static final String SAVE_GAMES_PATH = "C:\\Users\\ooomz\\Documents\\Paradox Interactive\\Stellaris\\save games";
     public static final String TEMP_DIR = "C:\\Users\\ooomz\\Documents\\Paradox Interactive\\Stellaris\\temp";
+    public static final String IRONMAN_SAVE = "ironman.sav";
+    public static final String GAMESTATE_ENTRY = "gamestate";
+    public static final String GALACTIC_OBJECT_KEY = "galactic_object";
+
+    public static final int NEARBY_JUMPS = 5;
+    public static final double ROUTE_LENGTH_EPSILON = 1e-6;
+
+    public static boolean extractToTempDir = false;
+    public static boolean useParseCache = true;
+    public static boolean showPlanets = false;
+    public static boolean showProfile = false;
+    public static boolean showTopology = false;
+    public static boolean showTerritory = false;
+    public static Path mapDirectory;
+    public static int mapTiles = 2;
+    public static boolean parallelParse = true;
+    public static StageProfiler profiler = new StageProfiler();
+    public static Path cacheDir = Paths.get(TEMP_DIR, "cache");
+    public static Path requestedSave;
+    public static String requestedHome;
+    public static ReportWriter reportWriter;
 
     public static List<Path> saveFolders = new ArrayList<>();
 
     public static List<String> specialSystems;
     public static List<String> specialFlags;
+    public static WatchlistMatcher specialSystemMatcher = new WatchlistMatcher(List.of());
+    public static WatchlistMatcher specialFlagMatcher = new WatchlistMatcher(List.of());
 
     public static Path currentExtractedGalaxyPath;
+    public static Path currentSavePath;
 
-    public static HashMap<Integer, SystemData> currentGalaxyMap = new HashMap<>();
+    public static Galaxy currentGalaxy;
     public static List<SystemData> locatedSpecialSystems = new ArrayList<>();
-    public static Map<SystemData, List<String>> locatedSpecialFlagSystems = new HashMap<>();
+    public static Map<SystemData, List<String>> locatedSpecialFlagSystems = new LinkedHashMap<>();
+    public static int[] specialSystemPatternHits = new int[0];
+    public static int[] specialFlagPatternHits = new int[0];
 
     public static SystemData selectedSystem = null;
+    public static NavigationEngine currentNavigation;
+
+    public static final Map<String, String> PRECURSOR_NAMES = Map.of(
+            "precursor_1", "Vultaum",
+            "precursor_2", "Yuht",
+            "precursor_3", "First League",
+            "precursor_4", "Irassians",
+            "precursor_5", "Cybrex",
+            "precursor_zroni_1", "Zroni",
+            "precursor_baol_1", "Baol"
+    );
 
     public static void main(String[] args) {
+        String format = argumentValue(args, "--format");
+        if (format != null && !ReportWriter.FORMATS.contains(format)) {
+            System.out.println("Usage: --format " + String.join("|", ReportWriter.FORMATS));
+            return;
+        }
+        if (format != null && !format.equals("text")) {
+            reportWriter = ReportWriter.create(format, System.out);
+            // Human-readable output moves to stderr so stdout carries nothing but records.
+            System.setOut(System.err);
+        }
         prepareFiles();
         System.out.println("Stellaris Save Peeker - v1 \n");
-        if (saveFolders.isEmpty()) {
+        // Parsing options come first, since --diff and --serve return before the report options below.
+        if (Arrays.asList(args).contains("--single-thread")) {
+            parallelParse = false;
+        }
+        if (Arrays.asList(args).contains("--no-cache")) {
+            useParseCache = false;
+        }
+        int diffArgument = Arrays.asList(args).indexOf("--diff");
+        if (diffArgument >= 0) {
+            if (diffArgument + 2 >= args.length) {
+                System.out.println("Usage: --diff <old save> <new save>");
+                return;
+            }
+            diffSaves(Paths.get(args[diffArgument + 1]), Paths.get(args[diffArgument + 2]));
+            return;
+        }
+        if (Arrays.asList(args).contains("--serve")) {
+            serve(args);
+            return;
+        }
+        String save = argumentValue(args, "--save");
+        if (save != null) {
+            requestedSave = Files.isDirectory(Paths.get(save)) ? Paths.get(save, IRONMAN_SAVE) : Paths.get(save);
+        }
+        requestedHome = argumentValue(args, "--home");
+        if (saveFolders.isEmpty() && requestedSave == null) {
             System.out.println("No save folders found.");
             return;
         }
+        if (Arrays.asList(args).contains("--planets")) {
+            showPlanets = true;
+        }
+        if (Arrays.asList(args).contains("--topology")) {
+            showTopology = true;
+        }
+        if (Arrays.asList(args).contains("--territory")) {
+            showTerritory = true;
+        }
+        if (argumentValue(args, "--map") != null) {
+            mapDirectory = Paths.get(argumentValue(args, "--map"));
+        }
+        if (argumentValue(args, "--map-tiles") != null) {
+            mapTiles = Integer.parseInt(argumentValue(args, "--map-tiles"));
+        }
+        if (Arrays.asList(args).contains("--profile")) {
+            showProfile = true;
+        }
+        if (Arrays.asList(args).contains("--batch")) {
+            if (reportWriter != null) {
+                BatchAnalyzer.run(saveFolders, summary -> summary.write(reportWriter));
+            } else {
+                BatchAnalyzer.run(saveFolders);
+            }
+            return;
+        }
+        if (reportWriter != null) {
+            writeReport(requestedSave != null ? requestedSave : saveFolders.get(0).resolve(IRONMAN_SAVE),
+                    requestedHome, reportWriter);
+            return;
+        }
         process();
+        if (Arrays.asList(args).contains("--watch") && currentSavePath != null) {
+            try {
+                new SaveWatcher(Paths.get(SAVE_GAMES_PATH), currentSavePath.getParent()).watch();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void serve(String[] args) {
+        String port = argumentValue(args, "--port");
+        String budget = argumentValue(args, "--heap-budget");
+        long heapBudgetBytes = budget != null
+                ? Long.parseLong(budget) * 1024 * 1024
+                : Runtime.getRuntime().maxMemory() / 2;
+        try {
+            new QueryServer(port != null ? Integer.parseInt(port) : QueryServer.DEFAULT_PORT,
+                    heapBudgetBytes, Paths.get(SAVE_GAMES_PATH)).start();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String argumentValue(String[] args, String name) {
+        int index = Arrays.asList(args).indexOf(name);
+        return index >= 0 && index + 1 < args.length ? args[index + 1] : null;
     }
 
     public static void prepareFiles() {
         try {
-            saveFolders = collectSavePaths(SAVE_GAMES_PATH);
             specialSystems = loadResourceList("special_systems.txt");
             specialFlags = loadResourceList("special_flags.txt");
+            compileWatchlists();
+            if (Files.isDirectory(Paths.get(SAVE_GAMES_PATH))) {
+                saveFolders = collectSavePaths(SAVE_GAMES_PATH);
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    public static void compileWatchlists() {
+        specialSystemMatcher = new WatchlistMatcher(specialSystems);
+        specialFlagMatcher = new WatchlistMatcher(specialFlags);
+    }
+
     public static List<Path> collectSavePaths(String directoryPath) throws IOException {
         Path dirPath = Paths.get(directoryPath);
         return Files.list(dirPath)
@@ -62,55 +202,290 @@ public class StellarisSaveAnalyzer {
     }
 
     public static void process() {
-        System.out.println("Available Saves: ");
-        displaySaveFolders(saveFolders);
-        int saveChoice = getUserChoice(saveFolders.size());
-        if (saveChoice == -1) return;
-
-        Path selectedFolder = saveFolders.get(saveChoice - 1);
-        Path ironmanSavePath = selectedFolder.resolve("ironman.sav");
+        Path ironmanSavePath;
+        if (requestedSave != null) {
+            ironmanSavePath = requestedSave;
+        } else {
+            System.out.println("Available Saves: ");
+            displaySaveFolders(saveFolders);
+            int saveChoice = getUserChoice(saveFolders.size());
+            if (saveChoice == -1) return;
+            ironmanSavePath = saveFolders.get(saveChoice - 1).resolve(IRONMAN_SAVE);
+        }
+        Path selectedFolder = ironmanSavePath.getParent();
 
         if (!Files.exists(ironmanSavePath)) {
             System.out.println("No ironman.sav file found in the selected folder.");
             return;
         }
 
-        if (createUniqueExtractionDirectory(TEMP_DIR, stripNumbers(String.valueOf(selectedFolder.getFileName())))) {
-            System.out.println("1. Extracted " + selectedFolder.getFileName() + " to " + currentExtractedGalaxyPath.getFileName());
-        }
-
+        currentSavePath = ironmanSavePath;
+        profiler.clear();
         try {
-            extractStellarisSaveData(ironmanSavePath.toString(), currentExtractedGalaxyPath.toString());
+            if (useParseCache && !extractToTempDir) {
+                try (StageProfiler.Stage stage = profiler.start("load cache")) {
+                    currentGalaxy = GalaxySnapshot.load(cacheDir, ironmanSavePath);
+                    if (currentGalaxy != null) {
+                        stage.addBytes(Files.size(GalaxySnapshot.snapshotPath(cacheDir, ironmanSavePath)));
+                        stage.addObjects(currentGalaxy.size());
+                    }
+                }
+            }
+            if (currentGalaxy != null) {
+                System.out.println("Loaded cached galaxy for " + selectedFolder.getFileName());
+            } else {
+                ByteBuffer galacticObjectBlock;
+                try (StageProfiler.Stage stage = profiler.start(extractToTempDir ? "extract and capture" : "unzip and capture")) {
+                    galacticObjectBlock = extractToTempDir
+                            ? extractAndProcessGamestate(selectedFolder, ironmanSavePath)
+                            : readGalacticObjectBlockFromSave(ironmanSavePath, stage);
+                }
+                if (galacticObjectBlock == null) {
+                    System.out.println("No galactic_object block found in " + ironmanSavePath.getFileName());
+                    return;
+                }
+                try (StageProfiler.Stage stage = profiler.start("parse galactic_object", ParallelGalacticObjectParser::workerThreadIds)) {
+                    stage.addBytes(galacticObjectBlock.remaining());
+                    currentGalaxy = parseGalacticObjectBlock(galacticObjectBlock);
+                    stage.addObjects(currentGalaxy.size());
+                }
+                if (useParseCache) {
+                    try (StageProfiler.Stage stage = profiler.start("write cache")) {
+                        saveGalaxySnapshot(ironmanSavePath, currentGalaxy);
+                        stage.addObjects(currentGalaxy.size());
+                    }
+                }
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
-        Path gamestatePath = currentExtractedGalaxyPath.resolve("gamestate");
-        try {
-            String galacticObjectContent = processGamestateFile(gamestatePath);
-            parseGalacticObjectBlock(galacticObjectContent);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        try (StageProfiler.Stage stage = profiler.start("overview and diameter")) {
+            outputGalaxyOverview();
+            stage.addObjects(currentGalaxy.size());
+        }
+        try (StageProfiler.Stage stage = profiler.start("locate special systems")) {
+            locateSpecialSystems();
+            outputWatchlistMatches();
+            stage.addObjects(locatedSpecialSystems.size() + locatedSpecialFlagSystems.size());
+        }
+        selectedSystem = requestedHome != null ? findHomeSystem(currentGalaxy, requestedHome) : getUserStartingSystem();
+        if (selectedSystem == null) {
+            List<String> suggestions = suggestSystemNames(currentGalaxy, requestedHome);
+            if (!suggestions.isEmpty()) {
+                System.out.println("\nDid you mean: " + String.join(", ", suggestions) + "?");
+            }
+        }
+        try (StageProfiler.Stage stage = profiler.start("home system")) {
+            outputHomeSystemSection();
+            stage.addObjects(currentGalaxy.size());
+        }
+
+        try (StageProfiler.Stage stage = profiler.start("navigation")) {
+            outputNavigationSection(currentGalaxy);
+            if (currentNavigation != null) {
+                stage.addObjects(currentNavigation.reachableCount());
+            }
+        }
+        if (showTopology) {
+            try (StageProfiler.Stage stage = profiler.start("topology")) {
+                outputTopologySection(currentGalaxy);
+                stage.addObjects(currentGalaxy.size());
+            }
+        }
+        if (showTerritory) {
+            try (StageProfiler.Stage stage = profiler.start("territory")) {
+                outputTerritorySection(currentGalaxy);
+                stage.addObjects(currentGalaxy.size());
+            }
+        }
+        if (mapDirectory != null) {
+            try (StageProfiler.Stage stage = profiler.start("map")) {
+                outputMap(currentGalaxy);
+                stage.addObjects(mapTiles * mapTiles);
+            }
+        }
+        if (showPlanets) {
+            try (StageProfiler.Stage stage = profiler.start("planets")) {
+                outputPlanetSection(ironmanSavePath);
+                stage.addObjects(locatedSpecialSystems.size() + locatedSpecialFlagSystems.size());
+            }
+        }
+        if (showProfile) {
+            profiler.printSummary();
         }
+    }
 
+    public static void refreshReport(Galaxy galaxy, boolean topologyUnchanged) {
+        currentGalaxy = galaxy;
+        if (!topologyUnchanged) {
+            currentNavigation = null;
+        }
         outputGalaxyOverview();
         locateSpecialSystems();
+        outputWatchlistMatches();
+        if (selectedSystem != null) {
+            selectedSystem = galaxy.systemById(selectedSystem.id);
+        }
         outputHomeSystemSection();
+        if (selectedSystem != null) {
+            outputNavigationSection(galaxy);
+        }
+    }
+
+    public static void writeReport(Path ironmanSavePath, String homeName, ReportWriter writer) {
+        String save = ironmanSavePath.toAbsolutePath().getParent().getFileName().toString();
+        Galaxy galaxy;
+        try {
+            galaxy = Files.exists(ironmanSavePath) ? loadGalaxyCached(ironmanSavePath) : null;
+        } catch (IOException e) {
+            writer.error(save, e.toString());
+            return;
+        }
+        if (galaxy == null) {
+            writer.error(save, Files.exists(ironmanSavePath) ? "no galactic_object block" : "no " + IRONMAN_SAVE);
+            return;
+        }
+        double galaxyDiameter = galaxy.diameter();
+        writer.overview(save, galaxy.size(), galaxyDiameter, findMostCommonPrecursor(galaxy));
+
+        List<SystemData> specialSystems = new ArrayList<>();
+        Map<SystemData, List<String>> specialFlagSystems = new LinkedHashMap<>();
+        locateSpecialSystems(galaxy, specialSystems, specialFlagSystems);
+        for (SystemData system : specialSystems) {
+            writer.specialSystem(save, system, List.of());
+        }
+        for (Map.Entry<SystemData, List<String>> entry : specialFlagSystems.entrySet()) {
+            writer.specialSystem(save, entry.getKey(), entry.getValue());
+        }
+        if (homeName == null) {
+            return;
+        }
 
-        Map<Integer, List<Integer>> adjacencyMap = compileAdjacencyMap();
-        outputNavigationSection(adjacencyMap);
+        SystemData home = findHomeSystem(galaxy, homeName);
+        if (home == null) {
+            List<String> suggestions = suggestSystemNames(galaxy, homeName);
+            writer.error(save, "starting system not found: " + homeName
+                    + (suggestions.isEmpty() ? "" : " (did you mean: " + String.join(", ", suggestions) + ")"));
+            return;
+        }
+        NavigationEngine navigation = new NavigationEngine(galaxy, galaxy.indexOf(home.id));
+        List<SystemData> pointsOfInterest = new ArrayList<>(specialSystems);
+        pointsOfInterest.addAll(specialFlagSystems.keySet());
+        for (SystemData system : pointsOfInterest) {
+            double distance = calculateDistance(home, system);
+            writer.pointOfInterest(save, home, system, distance, distance / galaxyDiameter * 100,
+                    calculateDirection(home, system), calculateAngle(home, system));
+
+            int[] route = navigation.route(galaxy.indexOf(system.id));
+            List<String> names = new ArrayList<>(route.length);
+            for (int index : route) {
+                names.add(galaxy.name(index));
+            }
+            writer.route(save, home, system, names, Router.length(galaxy, route));
+        }
+    }
+
+    private static ByteBuffer extractAndProcessGamestate(Path selectedFolder, Path ironmanSavePath) throws IOException {
+        if (createUniqueExtractionDirectory(TEMP_DIR, stripNumbers(String.valueOf(selectedFolder.getFileName())))) {
+            System.out.println("1. Extracted " + selectedFolder.getFileName() + " to " + currentExtractedGalaxyPath.getFileName());
+        }
+        extractStellarisSaveData(ironmanSavePath.toString(), currentExtractedGalaxyPath.toString());
+        return processGamestateFile(currentExtractedGalaxyPath.resolve(GAMESTATE_ENTRY));
+    }
+
+    public static Galaxy loadGalaxyCached(Path ironmanSavePath) throws IOException {
+        if (useParseCache) {
+            Galaxy cached = GalaxySnapshot.load(cacheDir, ironmanSavePath);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Galaxy galaxy = loadGalaxy(ironmanSavePath);
+        if (galaxy != null) {
+            saveGalaxySnapshot(ironmanSavePath, galaxy);
+        }
+        return galaxy;
+    }
+
+    private static void saveGalaxySnapshot(Path ironmanSavePath, Galaxy galaxy) {
+        if (!useParseCache) {
+            return;
+        }
+        try {
+            GalaxySnapshot.save(cacheDir, ironmanSavePath, galaxy);
+        } catch (IOException e) {
+            System.out.println("Could not write galaxy cache for " + ironmanSavePath + ": " + e.getMessage());
+        }
+    }
+
+    public static Galaxy loadGalaxy(Path ironmanSavePath) throws IOException {
+        try (ZipFile zipFile = new ZipFile(ironmanSavePath.toFile())) {
+            ZipEntry gamestateEntry = zipFile.getEntry(GAMESTATE_ENTRY);
+            if (gamestateEntry == null) {
+                return null;
+            }
+            try (InputStream gamestate = zipFile.getInputStream(gamestateEntry)) {
+                ByteBuffer galacticObjectBlock = GamestateBlockLocator.capture(gamestate, GALACTIC_OBJECT_KEY);
+                return galacticObjectBlock != null ? parseGalacticObjectBlock(galacticObjectBlock) : null;
+            }
+        }
+    }
+
+    public static ByteBuffer readGalacticObjectBlockFromSave(Path ironmanSavePath) throws IOException {
+        return readGalacticObjectBlockFromSave(ironmanSavePath, null);
+    }
+
+    private static ByteBuffer readGalacticObjectBlockFromSave(Path ironmanSavePath, StageProfiler.Stage stage) throws IOException {
+        try (ZipFile zipFile = new ZipFile(ironmanSavePath.toFile())) {
+            ZipEntry gamestateEntry = zipFile.getEntry(GAMESTATE_ENTRY);
+            if (gamestateEntry == null) {
+                System.out.println("No gamestate entry found in " + ironmanSavePath.getFileName());
+                return null;
+            }
+
+            System.out.println("Streaming gamestate from: " + ironmanSavePath);
+            try (InputStream gamestate = zipFile.getInputStream(gamestateEntry)) {
+                return GamestateBlockLocator.capture(stage != null ? stage.countBytes(gamestate) : gamestate, GALACTIC_OBJECT_KEY);
+            }
+        }
     }
 
     private static void outputGalaxyOverview() {
         System.out.println("\n - - - Galaxy Overview - - - ");
-        System.out.println("Total Galactic Objects: " + currentGalaxyMap.size());
+        System.out.println("Total Galactic Objects: " + currentGalaxy.size());
         double galacticDiameter = approximateGalaxyDiameter();
         System.out.printf("Approximate Galactic Diameter: %.2f units%n", galacticDiameter);
         System.out.println("====================================");
     }
 
+    public static void diffSaves(Path oldSave, Path newSave) {
+        try {
+            Galaxy before = loadGalaxyCached(Files.isDirectory(oldSave) ? oldSave.resolve(IRONMAN_SAVE) : oldSave);
+            Galaxy after = loadGalaxyCached(Files.isDirectory(newSave) ? newSave.resolve(IRONMAN_SAVE) : newSave);
+            if (before == null || after == null) {
+                System.out.println("No galactic_object block found in " + (before == null ? oldSave : newSave));
+                return;
+            }
+            outputGalaxyDiff(before, after);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static void outputGalaxyDiff(Galaxy before, Galaxy after) {
+        System.out.println("\n=== Galaxy Changes ===");
+        GalaxyDiff.Report report = new GalaxyDiff.Report(before, after);
+        GalaxyDiff.diff(before, after, report);
+        if (report.changes() == 0) {
+            System.out.println("No changes.");
+        } else {
+            System.out.println(report.changes() + " changes");
+        }
+        System.out.println("====================================");
+    }
+
     private static void outputHomeSystemSection() {
-        selectedSystem = getUserStartingSystem();
         if (selectedSystem == null) {
             System.out.println("\nStarting system not found.");
             return;
@@ -119,17 +494,18 @@ public class StellarisSaveAnalyzer {
         System.out.println("\n=== Home System and Nearby Systems ===");
         System.out.println("Your starting system: " + selectedSystem);
         System.out.println("\nDistances and Directions from Your Starting System:");
+        double galaxyDiameter = approximateGalaxyDiameter();
         for (SystemData system : locatedSpecialSystems) {
-            outputSystemDistanceDirectionAngle(selectedSystem, system, approximateGalaxyDiameter());
+            outputSystemDistanceDirectionAngle(selectedSystem, system, galaxyDiameter);
         }
 
         for (Map.Entry<SystemData, List<String>> entry : locatedSpecialFlagSystems.entrySet()) {
             SystemData system = entry.getKey();
-            outputSystemDistanceDirectionAngle(selectedSystem, system, approximateGalaxyDiameter());
+            outputSystemDistanceDirectionAngle(selectedSystem, system, galaxyDiameter);
         }
 
-        Map<String, Long> commonFlags = findCommonFlagsInNearbySystems(selectedSystem, 50.0);
-        String mostCommonPrecursor = findMostCommonPrecursor(selectedSystem);
+        Map<String, Long> commonFlags = findCommonFlagsInNearbySystems(currentGalaxy, selectedSystem, 50.0);
+        String mostCommonPrecursor = findMostCommonPrecursor(currentGalaxy, selectedSystem);
 
         System.out.println("\nAnalysis of Nearby Systems:");
         System.out.println("1. Precursor: " + (mostCommonPrecursor != null ? mostCommonPrecursor : "Not found"));
@@ -143,58 +519,272 @@ public class StellarisSaveAnalyzer {
         System.out.println("====================================");
     }
 
-    private static void outputNavigationSection(Map<Integer, List<Integer>> adjacencyMap) {
+    private static void outputNavigationSection(Galaxy galaxy) {
+        if (selectedSystem == null) {
+            return;
+        }
         System.out.println("\n=== Navigation to Points of Interest ===");
+        int home = galaxy.indexOf(selectedSystem.id);
+        if (currentNavigation == null || currentNavigation.source() != home) {
+            currentNavigation = new NavigationEngine(galaxy, home);
+        }
+        NavigationEngine navigation = currentNavigation;
+        Router router = new Router(galaxy);
+        List<SystemData> pointsOfInterest = new ArrayList<>(locatedSpecialSystems);
+        pointsOfInterest.addAll(locatedSpecialFlagSystems.keySet());
+        for (SystemData system : pointsOfInterest) {
+            int target = galaxy.indexOf(system.id);
+            int[] hopRoute = navigation.route(target);
+            outputRoute(galaxy, hopRoute);
+
+            Router.Route distanceRoute = router.route(navigation.source(), target, CostModel.distance());
+            double hopLength = Router.length(galaxy, hopRoute);
+            // A different route of equal length (up to rounding) is not worth reporting.
+            if (!distanceRoute.isEmpty() && distanceRoute.cost < hopLength - ROUTE_LENGTH_EPSILON) {
+                System.out.printf("   shorter by distance (%.2f vs %.2f units): ",
+                        distanceRoute.cost, hopLength);
+                outputRoute(galaxy, distanceRoute.systems);
+            }
+        }
+        System.out.printf("%nSystems within %d jumps: %d (%d reachable in total)%n",
+                NEARBY_JUMPS, navigation.withinJumps(NEARBY_JUMPS).length, navigation.reachableCount());
+        System.out.println("====================================");
+    }
+
+    private static void outputTopologySection(Galaxy galaxy) {
+        GalaxyTopology topology = new GalaxyTopology(galaxy);
+        System.out.println("\n=== Hyperlane Topology ===");
+        int largest = 0;
+        for (int c = 0; c < topology.componentCount(); c++) {
+            largest = Math.max(largest, topology.componentSize(c));
+        }
+        System.out.printf("Connected components: %d (largest: %d systems)%n", topology.componentCount(), largest);
+        int[] chokepoints = topology.articulationPoints();
+        System.out.printf("Chokepoint systems: %d, single-lane bridges: %d%n", chokepoints.length, topology.bridgeCount());
+
+        List<GalaxyTopology.Pocket> pockets = new ArrayList<>(topology.pockets());
+        pockets.sort((a, b) -> Integer.compare(b.size, a.size));
+        System.out.println("Dead-end pockets: " + pockets.size());
+        for (GalaxyTopology.Pocket pocket : pockets.subList(0, Math.min(5, pockets.size()))) {
+            System.out.printf("   - %d systems behind %s (entered from %s)%n",
+                    pocket.size, galaxy.name(pocket.entrance), galaxy.name(pocket.mouth));
+        }
+
+        if (selectedSystem != null) {
+            int home = galaxy.indexOf(selectedSystem.id);
+            int unreachable = galaxy.size() - topology.componentSize(topology.component(home));
+            if (unreachable > 0) {
+                System.out.println("Systems unreachable from home: " + unreachable);
+            }
+            if (topology.pocketOf(home) >= 0) {
+                GalaxyTopology.Pocket pocket = topology.pockets().get(topology.pocketOf(home));
+                System.out.printf("Your home system is in a dead-end pocket of %d systems, exited through %s -> %s%n",
+                        pocket.size, galaxy.name(pocket.entrance), galaxy.name(pocket.mouth));
+            }
+
+            NavigationEngine navigation = currentNavigation != null && currentNavigation.source() == home
+                    ? currentNavigation : new NavigationEngine(galaxy, home);
+            List<Integer> nearest = new ArrayList<>();
+            for (int chokepoint : chokepoints) {
+                if (chokepoint != home && navigation.isReachable(chokepoint)) {
+                    nearest.add(chokepoint);
+                }
+            }
+            nearest.sort(Comparator.comparingInt(navigation::hops));
+            System.out.println("Chokepoints nearest your starting system:");
+            for (int chokepoint : nearest.subList(0, Math.min(5, nearest.size()))) {
+                System.out.printf("   - %s: %d jumps away, %d hyperlanes%n",
+                        galaxy.name(chokepoint), navigation.hops(chokepoint), galaxy.degree(chokepoint));
+            }
+        }
+        System.out.println("====================================");
+    }
+
+    private static void outputTerritorySection(Galaxy galaxy) {
+        System.out.println("\n=== Territory Around Points of Interest ===");
+        List<Integer> sources = new ArrayList<>();
         for (SystemData system : locatedSpecialSystems) {
-            outputPath(findShortestPath(selectedSystem.id, system.id, adjacencyMap));
+            int index = galaxy.indexOf(system.id);
+            if (!sources.contains(index)) {
+                sources.add(index);
+            }
         }
         for (SystemData system : locatedSpecialFlagSystems.keySet()) {
-            outputPath(findShortestPath(selectedSystem.id, system.id, adjacencyMap));
+            int index = galaxy.indexOf(system.id);
+            if (!sources.contains(index)) {
+                sources.add(index);
+            }
+        }
+        if (sources.isEmpty()) {
+            System.out.println("No points of interest located.");
+            System.out.println("====================================");
+            return;
+        }
+
+        int[] sourceIndexes = sources.stream().mapToInt(Integer::intValue).toArray();
+        TerritoryPartition byJumps = new TerritoryPartition(galaxy, sourceIndexes);
+        TerritoryPartition byDistance = new TerritoryPartition(galaxy, sourceIndexes, CostModel.distance());
+        for (int slot = 0; slot < byJumps.sourceCount(); slot++) {
+            int[] boundary = byJumps.boundary(slot);
+            List<String> borders = new ArrayList<>();
+            for (int neighbor : byJumps.neighbors(slot)) {
+                borders.add(galaxy.name(byJumps.source(neighbor)));
+            }
+            System.out.printf("   - %s: %d systems within %d jumps (%d by distance, within %.2f units), %d boundary systems%s%n",
+                    galaxy.name(byJumps.source(slot)), byJumps.regionSize(slot), (int) byJumps.regionReach(slot),
+                    byDistance.regionSize(slot), byDistance.regionReach(slot), boundary.length,
+                    borders.isEmpty() ? "" : ", borders " + String.join(", ", borders));
+        }
+        if (byJumps.unclaimedCount() > 0) {
+            System.out.println("Systems not reachable from any point of interest: " + byJumps.unclaimedCount());
+        }
+        if (selectedSystem != null) {
+            int home = galaxy.indexOf(selectedSystem.id);
+            if (byJumps.owner(home) != TerritoryPartition.UNCLAIMED) {
+                System.out.printf("Your starting system is closest to %s (%d jumps)%n",
+                        galaxy.name(byJumps.source(byJumps.owner(home))), (int) byJumps.cost(home));
+            }
         }
         System.out.println("====================================");
     }
 
-    public static void outputPath(List<Integer> path) {
-        if (path.isEmpty()) {
+    private static void outputMap(Galaxy galaxy) {
+        List<SystemData> pointsOfInterest = new ArrayList<>(locatedSpecialSystems);
+        pointsOfInterest.addAll(locatedSpecialFlagSystems.keySet());
+        int[] poiIndexes = pointsOfInterest.stream().mapToInt(system -> galaxy.indexOf(system.id)).toArray();
+        GalaxyRenderer mapRenderer = new GalaxyRenderer(galaxy, mapTiles, GalaxyRenderer.DEFAULT_TILE_SIZE, poiIndexes);
+
+        List<int[]> routes = new ArrayList<>();
+        if (selectedSystem != null && currentNavigation != null) {
+            for (int target : poiIndexes) {
+                routes.add(currentNavigation.route(target));
+            }
+        }
+        try {
+            List<Path> tiles = mapRenderer.writeTiles(mapDirectory, routes);
+            System.out.println("\nWrote " + tiles.size() + " map tiles to " + mapDirectory.toAbsolutePath());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void outputPlanetSection(Path ironmanSavePath) {
+        GamestateDocument gamestate;
+        try {
+            gamestate = extractToTempDir && currentExtractedGalaxyPath != null
+                    ? GamestateDocument.open(currentExtractedGalaxyPath.resolve(GAMESTATE_ENTRY))
+                    : GamestateDocument.fromSave(ironmanSavePath, cacheDir);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        System.out.println("\n=== Planets in Points of Interest ===");
+        Set<SystemData> pointsOfInterest = new LinkedHashSet<>(locatedSpecialSystems);
+        pointsOfInterest.addAll(locatedSpecialFlagSystems.keySet());
+        for (SystemData system : pointsOfInterest) {
+            System.out.println(system.name + ":");
+            List<String> planets = describeSystemPlanets(gamestate, system.id);
+            if (planets.isEmpty()) {
+                System.out.println("   No planets found.");
+            }
+            for (String planet : planets) {
+                System.out.println("   - " + planet);
+            }
+        }
+        System.out.println("====================================");
+    }
+
+    public static List<String> describeSystemPlanets(GamestateDocument gamestate, int systemId) {
+        List<String> descriptions = new ArrayList<>();
+        GamestateDocument.Node galacticObjects = gamestate.get(GALACTIC_OBJECT_KEY);
+        GamestateDocument.Node system = galacticObjects != null ? galacticObjects.childById(systemId) : null;
+        GamestateDocument.Node planets = gamestate.get("planets");
+        GamestateDocument.Node planetsById = planets != null ? planets.get("planet") : null;
+        GamestateDocument.Node deposits = gamestate.get("deposit");
+        if (system == null || planetsById == null) {
+            return descriptions;
+        }
+
+        for (GamestateDocument.Node planetId : system.getAll("planet")) {
+            GamestateDocument.Node planet = planetsById.childById(planetId.asLong());
+            if (planet == null || !planet.isBlock()) {
+                continue;
+            }
+            GamestateDocument.Node nameNode = planet.get("name");
+            String name = nameNode == null ? "Unnamed" : nameNode.isBlock() ? nameNode.getText("key") : nameNode.text();
+            StringBuilder description = new StringBuilder(name != null ? name : "Unnamed")
+                    .append(" (").append(planet.getText("planet_class"))
+                    .append(", size ").append(planet.getText("planet_size")).append(")");
+
+            GamestateDocument.Node planetDeposits = planet.get("deposits");
+            if (planetDeposits != null && deposits != null) {
+                List<String> depositTypes = new ArrayList<>();
+                for (long depositId : planetDeposits.elementsAsLongs()) {
+                    GamestateDocument.Node deposit = deposits.childById(depositId);
+                    if (deposit != null && deposit.isBlock()) {
+                        depositTypes.add(deposit.getText("type"));
+                    }
+                }
+                if (!depositTypes.isEmpty()) {
+                    description.append(": ").append(String.join(", ", depositTypes));
+                }
+            }
+            descriptions.add(description.toString());
+        }
+        return descriptions;
+    }
+
+    public static void outputRoute(Galaxy galaxy, int[] route) {
+        if (route.length == 0) {
             System.out.println("No path found.");
             return;
         }
 
         StringBuilder result = new StringBuilder();
-        for (int i = 0; i < path.size(); i++) {
-            result.append(currentGalaxyMap.get(path.get(i)).name);
-            if (i < path.size() - 1) {
+        for (int i = 0; i < route.length; i++) {
+            result.append(galaxy.name(route[i]));
+            if (i < route.length - 1) {
                 result.append(" -> ");
             }
         }
+        result.append(" (").append(route.length - 1).append(" jumps)");
 
         System.out.println(result.toString());
     }
 
-    public static List<Integer> findShortestPath(int startId, int endId, Map<Integer, List<Integer>> adjacencyMap) {
-        Queue<List<Integer>> queue = new LinkedList<>();
-        Set<Integer> visited = new HashSet<>();
-
-        queue.add(Arrays.asList(startId));
-
-        while (!queue.isEmpty()) {
-            List<Integer> path = queue.poll();
-            int currentSystem = path.get(path.size() - 1);
+    public static List<Integer> findShortestPath(int startId, int endId, Galaxy galaxy) {
+        int start = galaxy.indexOf(startId);
+        int end = galaxy.indexOf(endId);
+        if (start < 0 || end < 0) {
+            return Collections.emptyList();
+        }
 
-            if (currentSystem == endId) {
+        int[] parent = new int[galaxy.size()];
+        Arrays.fill(parent, -1);
+        int[] queue = new int[galaxy.size()];
+        int head = 0;
+        int tail = 0;
+
+        queue[tail++] = start;
+        parent[start] = start;
+
+        while (head < tail) {
+            int current = queue[head++];
+            if (current == end) {
+                List<Integer> path = new ArrayList<>();
+                for (int step = end; step != start; step = parent[step]) {
+                    path.add(galaxy.id(step));
+                }
+                path.add(galaxy.id(start));
+                Collections.reverse(path);
                 return path;
             }
 
-            if (visited.contains(currentSystem)) {
-                continue;
-            }
-
-            visited.add(currentSystem);
-            for (int neighbor : adjacencyMap.getOrDefault(currentSystem, Collections.emptyList())) {
-                if (!visited.contains(neighbor)) {
-                    List<Integer> newPath = new ArrayList<>(path);
-                    newPath.add(neighbor);
-                    queue.add(newPath);
+            for (int lane = galaxy.laneStart(current); lane < galaxy.laneEnd(current); lane++) {
+                int neighbor = galaxy.laneTarget(lane);
+                if (parent[neighbor] == -1) {
+                    parent[neighbor] = current;
+                    queue[tail++] = neighbor;
                 }
             }
         }
@@ -202,42 +792,82 @@ public class StellarisSaveAnalyzer {
         return Collections.emptyList();
     }
 
-    private static boolean isDeadEnd(int systemId, int comingFrom, Map<Integer, List<Integer>> adjacencyMap) {
-        List<Integer> neighbors = adjacencyMap.getOrDefault(systemId, Collections.emptyList());
-        return neighbors.size() == 0 || (neighbors.size() == 1 && neighbors.get(0) == comingFrom);
+    public static List<Integer> findWeightedPath(int startId, int endId, Galaxy galaxy, CostModel costModel) {
+        int start = galaxy.indexOf(startId);
+        int end = galaxy.indexOf(endId);
+        if (start < 0 || end < 0) {
+            return Collections.emptyList();
+        }
+
+        List<Integer> path = new ArrayList<>();
+        for (int system : new Router(galaxy).route(start, end, costModel).systems) {
+            path.add(galaxy.id(system));
+        }
+        return path;
+    }
+
+    public static void locateSpecialSystems() {
+        locatedSpecialSystems.clear();
+        locatedSpecialFlagSystems.clear();
+        specialSystemPatternHits = new int[specialSystemMatcher.patternCount()];
+        specialFlagPatternHits = new int[specialFlagMatcher.patternCount()];
+        locateSpecialSystems(currentGalaxy, locatedSpecialSystems, locatedSpecialFlagSystems,
+                specialSystemPatternHits, specialFlagPatternHits);
+    }
+
+    public static void locateSpecialSystems(Galaxy galaxy, List<SystemData> locatedSystems,
+                                            Map<SystemData, List<String>> locatedFlagSystems) {
+        locateSpecialSystems(galaxy, locatedSystems, locatedFlagSystems, null, null);
     }
 
-    public static Map<Integer, List<Integer>> compileAdjacencyMap() {
-        Map<Integer, List<Integer>> adjacencyMap = new HashMap<>();
+    public static void locateSpecialSystems(Galaxy galaxy, List<SystemData> locatedSystems,
+                                            Map<SystemData, List<String>> locatedFlagSystems,
+                                            int[] systemPatternHits, int[] flagPatternHits) {
+        // Flags are matched once per dictionary entry, not once per occurrence.
+        int[] specialFlagIds = new int[galaxy.flagCount()];
+        for (int flagId = 0; flagId < specialFlagIds.length; flagId++) {
+            specialFlagIds[flagId] = specialFlagMatcher.firstMatch(galaxy.flagName(flagId));
+        }
 
-        for (Map.Entry<Integer, SystemData> entry : currentGalaxyMap.entrySet()) {
-            int systemId = entry.getKey();
-            SystemData systemData = entry.getValue();
+        Map<Integer, SystemData> namedSystems = new HashMap<>();
+        for (int i = 0; i < galaxy.size(); i++) {
+            int systemPattern = specialSystemMatcher.firstMatch(galaxy.name(i));
+            if (systemPattern != WatchlistMatcher.NO_MATCH) {
+                SystemData system = galaxy.system(i);
+                locatedSystems.add(system);
+                namedSystems.put(i, system);
+                if (systemPatternHits != null) {
+                    systemPatternHits[systemPattern]++;
+                }
+            }
+        }
 
-            List<Integer> connectedSystems = new ArrayList<>();
-            if (systemData.hyperlanes != null) {
-                for (Hyperlane hyperlane : systemData.hyperlanes) {
-                    connectedSystems.add(hyperlane.to);
+        BitSet flagged = galaxy.flagIndex().systemsWithAny(flagId -> specialFlagIds[flagId] != WatchlistMatcher.NO_MATCH);
+        for (int i = flagged.nextSetBit(0); i >= 0; i = flagged.nextSetBit(i + 1)) {
+            List<String> matchedFlags = new ArrayList<>();
+            for (int k = galaxy.flagStart(i); k < galaxy.flagEnd(i); k++) {
+                int flagId = galaxy.flagAt(k);
+                if (specialFlagIds[flagId] != WatchlistMatcher.NO_MATCH) {
+                    if (flagPatternHits != null) {
+                        flagPatternHits[specialFlagIds[flagId]]++;
+                    }
+                    matchedFlags.add(galaxy.flagName(flagId));
                 }
             }
-            adjacencyMap.put(systemId, connectedSystems);
+            SystemData system = namedSystems.get(i);
+            locatedFlagSystems.put(system != null ? system : galaxy.system(i), matchedFlags);
         }
+    }
 
-        return adjacencyMap;
+    private static void outputWatchlistMatches() {
+        outputWatchlistMatches(specialSystemMatcher, specialSystemPatternHits, "systems");
+        outputWatchlistMatches(specialFlagMatcher, specialFlagPatternHits, "flags");
     }
 
-    public static void locateSpecialSystems() {
-        for (SystemData system : currentGalaxyMap.values()) {
-            if (specialSystems.contains(system.name)) {
-                locatedSpecialSystems.add(system);
-            }
-            if (system.flags != null && system.flags.length > 0) {
-                List<String> matchedFlags = Arrays.stream(system.flags)
-                        .filter(specialFlags::contains)
-                        .collect(Collectors.toList());
-                if (!matchedFlags.isEmpty()) {
-                    locatedSpecialFlagSystems.put(system, matchedFlags);
-                }
+    private static void outputWatchlistMatches(WatchlistMatcher matcher, int[] hits, String label) {
+        for (int pattern = 0; pattern < matcher.patternCount(); pattern++) {
+            if (matcher.isWildcard(pattern)) {
+                System.out.printf("Watchlist pattern %s matched %d %s%n", matcher.pattern(pattern), hits[pattern], label);
             }
         }
     }
@@ -251,41 +881,55 @@ public class StellarisSaveAnalyzer {
         System.out.printf("   - %s is %.2f units away (%.2f%% of galaxy, direction: %s, angle: %.2f°)%n", to.name, distance, percentDistance, direction, angle);
     }
 
-    private static Map<String, Long> findCommonFlagsInNearbySystems(SystemData startingSystem, double maxDistance) {
-        return currentGalaxyMap.values().stream()
-                .filter(system -> calculateDistance(startingSystem, system) <= maxDistance)
-                .flatMap(system -> system.flags != null ? Arrays.stream(system.flags) : Stream.empty())
-                .collect(Collectors.groupingBy(flag -> flag, Collectors.counting()));
-    }
+    public static Map<String, Long> findCommonFlagsInNearbySystems(Galaxy galaxy, SystemData startingSystem, double maxDistance) {
+        BitSet nearby = new BitSet(galaxy.size());
+        galaxy.spatialIndex().forEachWithinRadius(startingSystem.x, startingSystem.y, maxDistance, nearby::set);
+        int[] counts = galaxy.flagIndex().countsWithin(nearby);
 
-    private static String findMostCommonPrecursor(SystemData homeSystem) {
-        Map<String, String> precursorMap = Map.of(
-                "precursor_1", "Vultaum",
-                "precursor_2", "Yuht",
-                "precursor_3", "First League",
-                "precursor_4", "Irassians",
-                "precursor_5", "Cybrex",
-                "precursor_zroni_1", "Zroni",
-                "precursor_baol_1", "Baol"
-        );
+        Map<String, Long> commonFlags = new HashMap<>();
+        for (int flagId = 0; flagId < counts.length; flagId++) {
+            if (counts[flagId] > 0) {
+                commonFlags.put(galaxy.flagName(flagId), (long) counts[flagId]);
+            }
+        }
+        return commonFlags;
+    }
 
+    public static String findMostCommonPrecursor(Galaxy galaxy, SystemData homeSystem) {
         if (homeSystem.flags != null) {
             for (String flag : homeSystem.flags) {
-                if (precursorMap.containsKey(flag)) {
-                    return precursorMap.get(flag);
+                if (PRECURSOR_NAMES.containsKey(flag)) {
+                    return PRECURSOR_NAMES.get(flag);
                 }
             }
         }
 
-        Map<String, Long> commonFlags = findCommonFlagsInNearbySystems(homeSystem, 75.0);
+        Map<String, Long> commonFlags = findCommonFlagsInNearbySystems(galaxy, homeSystem, 75.0);
 
         return commonFlags.entrySet().stream()
-                .filter(entry -> precursorMap.containsKey(entry.getKey()))
+                .filter(entry -> PRECURSOR_NAMES.containsKey(entry.getKey()))
                 .max(Map.Entry.comparingByValue())
-                .map(entry -> precursorMap.get(entry.getKey()))
+                .map(entry -> PRECURSOR_NAMES.get(entry.getKey()))
                 .orElse(null);
     }
 
+    public static String findMostCommonPrecursor(Galaxy galaxy) {
+        String mostCommon = null;
+        int mostCommonCount = 0;
+        for (int flagId = 0; flagId < galaxy.flagCount(); flagId++) {
+            String precursor = PRECURSOR_NAMES.get(galaxy.flagName(flagId));
+            if (precursor == null) {
+                continue;
+            }
+            int count = galaxy.flagIndex().count(flagId);
+            if (count > mostCommonCount) {
+                mostCommon = precursor;
+                mostCommonCount = count;
+            }
+        }
+        return mostCommon;
+    }
+
     private static String calculateDirection(SystemData from, SystemData to) {
         double dx = to.x - from.x;
         double dy = to.y - from.y;
@@ -309,20 +953,7 @@ public class StellarisSaveAnalyzer {
     }
 
     private static double approximateGalaxyDiameter() {
-        double maxDistance = 0;
-
-        List<SystemData> systems = new ArrayList<>(currentGalaxyMap.values());
-
-        for (int i = 0; i < systems.size(); i++) {
-            for (int j = i + 1; j < systems.size(); j++) {
-                double distance = calculateDistance(systems.get(i), systems.get(j));
-                if (distance > maxDistance) {
-                    maxDistance = distance;
-                }
-            }
-        }
-
-        return maxDistance;
+        return currentGalaxy.diameter();
     }
 
     private static double calculateDistance(SystemData system1, SystemData system2) {
@@ -339,27 +970,32 @@ public class StellarisSaveAnalyzer {
             System.out.print("\nEnter the name of your starting system: ");
             String input = scanner.nextLine().trim();
 
-            matchedSystem = currentGalaxyMap.values().stream()
-                    .filter(system -> system.name.equalsIgnoreCase(input))
-                    .findFirst()
-                    .orElse(null);
-
-            if (matchedSystem == null) {
-                String prefixedInput = "NAME_" + input;
-                matchedSystem = currentGalaxyMap.values().stream()
-                        .filter(system -> system.name.equalsIgnoreCase(prefixedInput))
-                        .findFirst()
-                        .orElse(null);
-            }
+            matchedSystem = findHomeSystem(currentGalaxy, input);
 
             if (matchedSystem == null) {
-                System.out.println("System not found. Please try again.");
+                List<String> suggestions = suggestSystemNames(currentGalaxy, input);
+                System.out.println(suggestions.isEmpty()
+                        ? "System not found. Please try again."
+                        : "System not found. Did you mean: " + String.join(", ", suggestions) + "?");
             }
         }
 
         return matchedSystem;
     }
 
+    public static SystemData findHomeSystem(Galaxy galaxy, String name) {
+        int index = galaxy.nameIndex().find(name);
+        return index >= 0 ? galaxy.system(index) : null;
+    }
+
+    public static List<String> suggestSystemNames(Galaxy galaxy, String name) {
+        List<String> suggestions = new ArrayList<>();
+        for (int index : galaxy.nameIndex().suggest(name, 5)) {
+            suggestions.add(galaxy.name(index));
+        }
+        return suggestions;
+    }
+
     private static String stripNumbers(String name) {
         return name.split("_")[0];
     }
@@ -380,10 +1016,10 @@ public class StellarisSaveAnalyzer {
         }
     }
 
-    private static String processGamestateFile(Path gamestatePath) throws IOException {
+    private static ByteBuffer processGamestateFile(Path gamestatePath) throws IOException {
         if (!Files.exists(gamestatePath)) {
             System.out.println("No gamestate file found.");
-            return "";
+            return null;
         }
 
         System.out.println("Found gamestate file at: " + gamestatePath.toString());
@@ -448,128 +1084,19 @@ public class StellarisSaveAnalyzer {
         }
     }
 
-    public static String captureTopLevelGalacticObjectBlock(Path gamestatePath) throws IOException {
-        List<String> lines = Files.readAllLines(gamestatePath);
-        boolean foundTopLevelGalacticObject = false;
-        int bracketDepth = 0;
-        StringBuilder galacticObjectContent = new StringBuilder();
-
-        for (int i = 0; i < lines.size(); i++) {
-            String line = lines.get(i).trim();
-
-            if (line.equals("galactic_object=") && i + 1 < lines.size() && lines.get(i + 1).trim().equals("{")) {
-                foundTopLevelGalacticObject = true;
-                bracketDepth++;
-                galacticObjectContent.append(line).append("\n");
-                galacticObjectContent.append(lines.get(i + 1).trim()).append("\n");
-                i++;
-                continue;
-            }
-
-            if (foundTopLevelGalacticObject) {
-                if (line.contains("{")) {
-                    bracketDepth++;
-                }
-                if (line.contains("}")) {
-                    bracketDepth--;
-                }
-
-                galacticObjectContent.append(line).append("\n");
-
-                if (bracketDepth == 0) {
-                    break;
-                }
-            }
-        }
-
-        return foundTopLevelGalacticObject ? galacticObjectContent.toString() : null;
+    public static ByteBuffer captureTopLevelGalacticObjectBlock(Path gamestatePath) throws IOException {
+        return GamestateBlockLocator.locate(GamestateBlockLocator.map(gamestatePath), GALACTIC_OBJECT_KEY);
     }
 
-    public static void parseGalacticObjectBlock(String galacticObjectContent) {
-        String[] objects = galacticObjectContent.split("(?<=\\})\\s*(?=\\d+=)");
-
-        for (String object : objects) {
-            SystemData systemData = parseSystemData(object);
-            if (systemData != null) {
-                currentGalaxyMap.put(systemData.id, systemData);
-            } else {
-                System.out.println("Could not load system data: " + object);
-            }
-        }
+    public static Galaxy parseGalacticObjectBlock(String galacticObjectContent) {
+        return parseGalacticObjectBlock(ByteBuffer.wrap(galacticObjectContent.getBytes(StandardCharsets.UTF_8)));
     }
 
-    private static SystemData parseSystemData(String object) {
-        int id = extractSystemId(object);
-        String name = extractSystemName(object);
-        double[] coordinates = extractCoordinates(object);
-        List<String> flags = extractFlags(object);
-        List<Hyperlane> hyperlanes = extractHyperlanes(object);
-
-        if (name != null && coordinates[0] != 0 && coordinates[1] != 0) {
-            SystemData data = new SystemData(id, name, coordinates[0], coordinates[1]);
-            if (!flags.isEmpty()) {
-                data.setFlags(flags.toArray(new String[0]));
-            }
-            if (hyperlanes != null) {
-                data.setHyperlanes(hyperlanes);
-            }
-            return data;
-        }
-        return null;
-    }
-
-    private static String extractSystemName(String object) {
-        Matcher nameMatcher = Pattern.compile("key=\"([^\"]+)\"").matcher(object);
-        return nameMatcher.find() ? nameMatcher.group(1) : null;
-    }
-
-    private static int extractSystemId(String object) {
-        Matcher idMatcher = Pattern.compile("(\\d+)=").matcher(object);
-        return idMatcher.find() ? Integer.parseInt(idMatcher.group(1)) : -1;
-    }
-
-    private static double[] extractCoordinates(String object) {
-        double[] coordinates = new double[2];
-        Matcher xMatcher = Pattern.compile("x=(-?\\d+\\.?\\d*)").matcher(object);
-        Matcher yMatcher = Pattern.compile("y=(-?\\d+\\.?\\d*)").matcher(object);
-        if (xMatcher.find() && yMatcher.find()) {
-            coordinates[0] = Double.parseDouble(xMatcher.group(1));
-            coordinates[1] = Double.parseDouble(yMatcher.group(1));
-        }
-        return coordinates;
-    }
-
-    private static List<String> extractFlags(String object) {
-        List<String> flags = new ArrayList<>();
-        Matcher flagMatcher = Pattern.compile("flags=\\s*\\{([^}]*)\\}").matcher(object);
-        if (flagMatcher.find()) {
-            String flagsBlock = flagMatcher.group(1);
-            Matcher individualFlagMatcher = Pattern.compile("([a-zA-Z0-9_]+)(?==)").matcher(flagsBlock);
-            while (individualFlagMatcher.find()) {
-                flags.add(individualFlagMatcher.group(1));
-            }
-        }
-        return flags;
-    }
-
-    private static List<Hyperlane> extractHyperlanes(String object) {
-        Matcher hyperlaneBlockMatcher = Pattern.compile("hyperlane=\\s*\\{\\s*((\\{[^{}]*\\}\\s*)+)\\}", Pattern.DOTALL).matcher(object);
-
-        if (hyperlaneBlockMatcher.find()) {
-            String hyperlaneBlock = hyperlaneBlockMatcher.group(1).trim();
-            Pattern hyperlanePattern = Pattern.compile("to=(\\d+)");
-            Matcher hyperlaneMatcher = hyperlanePattern.matcher(hyperlaneBlock);
-
-            List<Hyperlane> hyperlanes = new ArrayList<>();
-
-            while (hyperlaneMatcher.find()) {
-                int toSystem = Integer.parseInt(hyperlaneMatcher.group(1));
-                hyperlanes.add(new Hyperlane(toSystem));
-            }
-
-            return hyperlanes;
+    public static Galaxy parseGalacticObjectBlock(ByteBuffer galacticObjectBlock) {
+        if (parallelParse) {
+            return ParallelGalacticObjectParser.parse(galacticObjectBlock);
         }
-        return null;
+        return new GalacticObjectParser(galacticObjectBlock).parse();
     }
 
     static class Hyperlane {
@@ -0,0 +1,123 @@
+package monster.giz;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class SymbolTable {
+
+    private byte[][] keys = new byte[64][];
+    private int[] ids = new int[64];
+    private String[] symbols = new String[32];
+    private int size;
+
+    public int intern(ByteBuffer buffer, int start, int end) {
+        int hash = hash(buffer, start, end);
+        int mask = keys.length - 1;
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (matches(keys[slot], buffer, start, end)) {
+                return ids[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        byte[] key = new byte[end - start];
+        buffer.get(start, key);
+        return insert(slot, key, new String(key, StandardCharsets.UTF_8));
+    }
+
+    public int intern(String symbol) {
+        byte[] key = symbol.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer wrapped = ByteBuffer.wrap(key);
+        int hash = hash(wrapped, 0, key.length);
+        int mask = keys.length - 1;
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (Arrays.equals(keys[slot], key)) {
+                return ids[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return insert(slot, key, symbol);
+    }
+
+    public int find(String symbol) {
+        byte[] key = symbol.getBytes(StandardCharsets.UTF_8);
+        int mask = keys.length - 1;
+        int slot = hash(ByteBuffer.wrap(key), 0, key.length) & mask;
+        while (keys[slot] != null) {
+            if (Arrays.equals(keys[slot], key)) {
+                return ids[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    public String symbol(int id) {
+        return symbols[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String[] toArray() {
+        return Arrays.copyOf(symbols, size);
+    }
+
+    private int insert(int slot, byte[] key, String symbol) {
+        int id = size++;
+        keys[slot] = key;
+        ids[slot] = id;
+        if (id == symbols.length) {
+            symbols = Arrays.copyOf(symbols, id * 2);
+        }
+        symbols[id] = symbol;
+        if (size * 2 > keys.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        byte[][] oldKeys = keys;
+        int[] oldIds = ids;
+        keys = new byte[oldKeys.length * 2][];
+        ids = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) {
+                continue;
+            }
+            int slot = hash(ByteBuffer.wrap(oldKeys[i]), 0, oldKeys[i].length) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            ids[slot] = oldIds[i];
+        }
+    }
+
+    private static boolean matches(byte[] key, ByteBuffer buffer, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(ByteBuffer buffer, int start, int end) {
+        int hash = 0x811c9dc5;
+        for (int i = start; i < end; i++) {
+            hash ^= buffer.get(i);
+            hash *= 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,178 @@
+package monster.giz;
+
+import java.util.Arrays;
+
+public class TerritoryPartition {
+
+    public static final int UNCLAIMED = -1;
+
+    private final Galaxy galaxy;
+    private final int[] sources;
+    private final int[] owner;
+    private final double[] cost;
+    private final int[] regionSizes;
+    private final double[] regionReach;
+
+    public TerritoryPartition(Galaxy galaxy, int[] sources) {
+        this(galaxy, sources, null);
+    }
+
+    public TerritoryPartition(Galaxy galaxy, int[] sources, CostModel costModel) {
+        this.galaxy = galaxy;
+        this.sources = sources;
+        this.owner = new int[galaxy.size()];
+        this.cost = new double[galaxy.size()];
+        Arrays.fill(owner, UNCLAIMED);
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        if (costModel == null) {
+            labelByJumps();
+        } else {
+            labelByCost(costModel);
+        }
+
+        this.regionSizes = new int[sources.length];
+        this.regionReach = new double[sources.length];
+        for (int i = 0; i < owner.length; i++) {
+            if (owner[i] != UNCLAIMED) {
+                regionSizes[owner[i]]++;
+                regionReach[owner[i]] = Math.max(regionReach[owner[i]], cost[i]);
+            }
+        }
+    }
+
+    private void labelByJumps() {
+        // One BFS seeded with every source at once: each system is claimed by whichever source's wave reaches it first.
+        int[] queue = new int[galaxy.size()];
+        int head = 0;
+        int tail = 0;
+        for (int slot = 0; slot < sources.length; slot++) {
+            int source = sources[slot];
+            if (owner[source] == UNCLAIMED) {
+                owner[source] = slot;
+                cost[source] = 0;
+                queue[tail++] = source;
+            }
+        }
+        while (head < tail) {
+            int current = queue[head++];
+            double nextHops = cost[current] + 1;
+            for (int lane = galaxy.laneStart(current); lane < galaxy.laneEnd(current); lane++) {
+                int neighbor = galaxy.laneTarget(lane);
+                if (owner[neighbor] == UNCLAIMED) {
+                    owner[neighbor] = owner[current];
+                    cost[neighbor] = nextHops;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+    }
+
+    private void labelByCost(CostModel costModel) {
+        boolean[] closed = new boolean[galaxy.size()];
+        MinHeap heap = new MinHeap();
+        for (int slot = 0; slot < sources.length; slot++) {
+            int source = sources[slot];
+            if (owner[source] == UNCLAIMED) {
+                owner[source] = slot;
+                cost[source] = 0;
+                heap.push(source, 0);
+            }
+        }
+        while (!heap.isEmpty()) {
+            int current = heap.pop();
+            if (closed[current]) {
+                continue;
+            }
+            closed[current] = true;
+            for (int lane = galaxy.laneStart(current); lane < galaxy.laneEnd(current); lane++) {
+                int neighbor = galaxy.laneTarget(lane);
+                if (closed[neighbor]) {
+                    continue;
+                }
+                double candidate = cost[current] + costModel.laneCost(galaxy, current, neighbor);
+                if (candidate < cost[neighbor]) {
+                    cost[neighbor] = candidate;
+                    owner[neighbor] = owner[current];
+                    heap.push(neighbor, candidate);
+                }
+            }
+        }
+    }
+
+    public int sourceCount() {
+        return sources.length;
+    }
+
+    public int source(int slot) {
+        return sources[slot];
+    }
+
+    public int owner(int index) {
+        return owner[index];
+    }
+
+    public double cost(int index) {
+        return cost[index];
+    }
+
+    public int regionSize(int slot) {
+        return regionSizes[slot];
+    }
+
+    public double regionReach(int slot) {
+        return regionReach[slot];
+    }
+
+    public int unclaimedCount() {
+        int unclaimed = 0;
+        for (int slot : owner) {
+            if (slot == UNCLAIMED) {
+                unclaimed++;
+            }
+        }
+        return unclaimed;
+    }
+
+    public int[] boundary(int slot) {
+        // Boundary systems belong to the region and have at least one hyperlane into a different region.
+        int count = 0;
+        int[] boundary = new int[regionSizes[slot]];
+        for (int i = 0; i < owner.length; i++) {
+            if (owner[i] != slot) {
+                continue;
+            }
+            for (int lane = galaxy.laneStart(i); lane < galaxy.laneEnd(i); lane++) {
+                int neighborOwner = owner[galaxy.laneTarget(lane)];
+                if (neighborOwner != slot && neighborOwner != UNCLAIMED) {
+                    boundary[count++] = i;
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(boundary, count);
+    }
+
+    public int[] neighbors(int slot) {
+        boolean[] adjacent = new boolean[sources.length];
+        int count = 0;
+        for (int i = 0; i < owner.length; i++) {
+            if (owner[i] != slot) {
+                continue;
+            }
+            for (int lane = galaxy.laneStart(i); lane < galaxy.laneEnd(i); lane++) {
+                int neighborOwner = owner[galaxy.laneTarget(lane)];
+                if (neighborOwner != slot && neighborOwner != UNCLAIMED && !adjacent[neighborOwner]) {
+                    adjacent[neighborOwner] = true;
+                    count++;
+                }
+            }
+        }
+        int[] neighbors = new int[count];
+        for (int other = 0, k = 0; other < adjacent.length; other++) {
+            if (adjacent[other]) {
+                neighbors[k++] = other;
+            }
+        }
+        return neighbors;
+    }
+}
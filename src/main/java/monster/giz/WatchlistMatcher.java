@@ -0,0 +1,144 @@
+package monster.giz;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class WatchlistMatcher {
+
+    public static final int NO_MATCH = -1;
+
+    private final String[] patterns;
+    private final Map<String, Integer> exactPatterns = new HashMap<>();
+    private final Node root = new Node();
+    private boolean hasWildcards;
+
+    public WatchlistMatcher(List<String> patterns) {
+        this.patterns = patterns.toArray(new String[0]);
+        for (int i = 0; i < this.patterns.length; i++) {
+            String pattern = this.patterns[i];
+            int wildcard = firstWildcard(pattern);
+            if (wildcard < 0) {
+                exactPatterns.putIfAbsent(pattern, i);
+                continue;
+            }
+
+            // Index the literal prefix in a trie; only the rest of the glob is checked per candidate.
+            hasWildcards = true;
+            Node node = root;
+            for (int c = 0; c < wildcard; c++) {
+                node = node.childOrCreate(pattern.charAt(c));
+            }
+            node.addPattern(i, wildcard);
+        }
+    }
+
+    public int patternCount() {
+        return patterns.length;
+    }
+
+    public String pattern(int index) {
+        return patterns[index];
+    }
+
+    public boolean isWildcard(int index) {
+        return firstWildcard(patterns[index]) >= 0;
+    }
+
+    public boolean isEmpty() {
+        return patterns.length == 0;
+    }
+
+    public boolean matches(String value) {
+        return firstMatch(value) != NO_MATCH;
+    }
+
+    public int firstMatch(String value) {
+        int first = exactPatterns.getOrDefault(value, NO_MATCH);
+        if (!hasWildcards) {
+            return first;
+        }
+        Node node = root;
+        for (int c = 0; node != null; c++) {
+            for (int k = 0; k < node.patternCount; k++) {
+                int pattern = node.patterns[k];
+                if ((first == NO_MATCH || pattern < first) && globMatches(patterns[pattern], node.suffixStarts[k], value, c)) {
+                    first = pattern;
+                }
+            }
+            node = c < value.length() ? node.child(value.charAt(c)) : null;
+        }
+        return first;
+    }
+
+    private static int firstWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean globMatches(String pattern, int p, String value, int v) {
+        int starPattern = -1;
+        int starValue = -1;
+        while (v < value.length()) {
+            if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == value.charAt(v))) {
+                p++;
+                v++;
+            } else if (p < pattern.length() && pattern.charAt(p) == '*') {
+                starPattern = p++;
+                starValue = v;
+            } else if (starPattern >= 0) {
+                p = starPattern + 1;
+                v = ++starValue;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length() && pattern.charAt(p) == '*') {
+            p++;
+        }
+        return p == pattern.length();
+    }
+
+    private static class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int[] patterns = new int[0];
+        private int[] suffixStarts = new int[0];
+        private int patternCount;
+
+        Node child(char key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node childOrCreate(char key) {
+            Node child = child(key);
+            if (child == null) {
+                child = new Node();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = key;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+
+        void addPattern(int pattern, int suffixStart) {
+            patterns = Arrays.copyOf(patterns, patternCount + 1);
+            suffixStarts = Arrays.copyOf(suffixStarts, patternCount + 1);
+            patterns[patternCount] = pattern;
+            suffixStarts[patternCount] = suffixStart;
+            patternCount++;
+        }
+    }
+}